@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.server;
+
+import assignments.restaurant.app.codec.BinaryMessageOutput;
+import assignments.restaurant.app.codec.MessageCodec;
+import assignments.restaurant.app.codec.MessageCodecType;
+import assignments.restaurant.app.codec.MessageOutput;
+import assignments.restaurant.app.codec.SerializedMessageOutput;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.OrderBuilder;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.Pix;
+import assignments.restaurant.order.state.StateType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of writing what a response sender sends to a client, as the number of orders grows.
+ * The update of a response sender only queues the response, so what is measured is the encoding done by its writer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class ResponseSenderBenchmark {
+
+    @Param({"Serialized", "Binary"})
+    private MessageCodecType                  messageCodecType;
+    @Param({"10", "100", "1000"})
+    private int                               numberOfOrders;
+    private ConcurrentHashMap<Integer, Order> orders;
+    private MessageOutput                     sendToClient;
+
+    @Setup
+    public void setUp()
+            throws IOException {
+        this.orders = new ConcurrentHashMap<>();
+        for (
+                int i = 1;
+                i <= this.numberOfOrders;
+                i++
+        ) {
+            var orderBuilder = new OrderBuilder(OrderCategoryType.Delivery);
+            orderBuilder.setCustomerName("Cliente " + i);
+            orderBuilder.setAppetizer(Query.fetchMenuComponentById("coxinha").getFirst());
+            orderBuilder.setMainCourse(Query.fetchMenuComponentById("feijoada").getFirst());
+            orderBuilder.decorateMainCourse(Query.fetchMenuComponentById("farofa").getFirst());
+            orderBuilder.setBeverage(Query.fetchMenuComponentById("caipirinha").getFirst());
+            orderBuilder.setDessert(Query.fetchMenuComponentById("brigadeiro").getFirst());
+            orderBuilder.setPaymentStrategy(new Pix());
+            this.orders.put(i, orderBuilder.build());
+        }
+        this.sendToClient = switch (this.messageCodecType) {
+            case Serialized -> new SerializedMessageOutput(OutputStream.nullOutputStream());
+            case Binary -> new BinaryMessageOutput(OutputStream.nullOutputStream(), MessageCodec.getCurrentVersion());
+        };
+    }
+
+    @Benchmark
+    public void writeOrderChange()
+            throws IOException {
+        this.sendToClient.write(Response.sendOrderChanges(List.of(OrderChange.advanced(
+                this.numberOfOrders + 1,
+                1,
+                StateType.Preparing
+        ))));
+    }
+
+    @Benchmark
+    public void writeOrders()
+            throws IOException {
+        this.sendToClient.write(Response.sendOrders(this.orders, this.numberOfOrders));
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.server;
+
+import assignments.restaurant.app.codec.BinaryMessageOutput;
+import assignments.restaurant.app.codec.MessageCodec;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.OrderBuilder;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.Pix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding orders from many threads at once, with a number of clients listening to the changes.
+ * The server context is recreated on every iteration, so the orders added by one iteration do not slow down the next.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class ServerContextBenchmark {
+
+    @Param({"0", "16"})
+    private int           numberOfListeners;
+    private Order         order;
+    private ServerContext serverContext;
+
+    @Benchmark
+    @Threads(4)
+    public void addOrder() {
+        this.serverContext.addOrder(this.order);
+    }
+
+    @Setup(Level.Iteration)
+    public void createServerContext() {
+        this.serverContext = new ServerContext(256, OverflowPolicyType.DropAndResync);
+        var serverPrintStream = new PrintStream(OutputStream.nullOutputStream());
+        for (
+                int i = 0;
+                i < this.numberOfListeners;
+                i++
+        ) {
+            var sendToClient = new BinaryMessageOutput(
+                    OutputStream.nullOutputStream(),
+                    MessageCodec.getCurrentVersion()
+            );
+            new ResponseSender(sendToClient, sendToClient, this.serverContext, serverPrintStream);
+        }
+    }
+
+    @Setup
+    public void createOrder() {
+        var orderBuilder = new OrderBuilder(OrderCategoryType.DineIn);
+        orderBuilder.setCustomerName("Alice Andrade");
+        orderBuilder.setAppetizer(Query.fetchMenuComponentById("coxinha").getFirst());
+        orderBuilder.setMainCourse(Query.fetchMenuComponentById("feijoada").getFirst());
+        orderBuilder.setBeverage(Query.fetchMenuComponentById("caipirinha").getFirst());
+        orderBuilder.setDessert(Query.fetchMenuComponentById("brigadeiro").getFirst());
+        orderBuilder.setPaymentStrategy(new Pix());
+        this.order = orderBuilder.build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void shutdownWriters() {
+        this.serverContext.getWriters().shutdownNow();
+    }
+
+}
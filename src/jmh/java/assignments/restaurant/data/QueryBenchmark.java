@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures fetching menu components, both without restrictions and restricted by every criterion, and a page of a
+ * query sorted by cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class QueryBenchmark {
+
+    @Benchmark
+    public List<MenuComponentRecord> fetchAllMenuComponents() {
+        return Query.fetchAllMenuComponents(null, null, null);
+    }
+
+    @Benchmark
+    public List<MenuComponentRecord> fetchMenuComponentById() {
+        return Query.fetchMenuComponentById("feijoada");
+    }
+
+    @Benchmark
+    public List<MenuComponentRecord> fetchPageSortedByCost() {
+        return Query.query()
+                    .restrictByCuisine(RestrictByCuisine.Italian)
+                    .restrictByCost(5, 20)
+                    .sortByCost()
+                    .offset(2)
+                    .limit(3)
+                    .fetch();
+    }
+
+    @Benchmark
+    public List<MenuComponentRecord> fetchRestrictedMenuComponents() {
+        return Query.fetchAllMenuComponents(
+                RestrictByCuisine.Italian,
+                RestrictByCategory.MainCourse,
+                RestrictByDecorator.IsDecorator
+                                           );
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures searching a synthetic menu of fifty thousand components, made of copies of the built-in menu, for a whole
+ * word, a short prefix as it is first typed and a text of several words.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class SearchBenchmark {
+
+    private Catalog catalog;
+    @Param({"mucarela", "fe", "pao ital"})
+    private String  text;
+
+    @Setup
+    public void setUp() {
+        var template = Data.getInstance().getCatalog().getRecords();
+        List<MenuComponentRecord> records = new ArrayList<>();
+        for (
+                int i = 0;
+                i < 50_000;
+                i++
+        ) {
+            var record = template.get(i % template.size());
+            records.add(new MenuComponentRecord(
+                    record.id() + "_" + i,
+                    record.category(),
+                    record.cuisine(),
+                    record.isDecorator(),
+                    record.name() + " " + i,
+                    record.description(),
+                    record.cost()
+            ));
+        }
+        this.catalog = new Catalog(1, records);
+        // The index is built on the first search, which is not what is measured
+        this.catalog.search(this.text, 1);
+    }
+
+    @Benchmark
+    public List<MenuComponentRecord> search() {
+        return this.catalog.search(this.text, 20);
+    }
+
+}
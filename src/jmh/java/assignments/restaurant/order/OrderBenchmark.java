@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.order;
+
+import assignments.restaurant.data.MenuComponentRecord;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.Pix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building orders and computing their cost as the chains of decorators grow.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class OrderBenchmark {
+
+    @Param({"0", "4", "32"})
+    private int                 numberOfDecorators;
+    private MenuComponentRecord appetizerRecord;
+    private MenuComponentRecord appetizerDecoratorRecord;
+    private MenuComponentRecord beverageRecord;
+    private MenuComponentRecord dessertRecord;
+    private MenuComponentRecord mainCourseRecord;
+    private MenuComponentRecord mainCourseDecoratorRecord;
+    private Order               order;
+
+    @Benchmark
+    public Order build() {
+        var orderBuilder = new OrderBuilder(OrderCategoryType.Delivery);
+        orderBuilder.setCustomerName("Alice Andrade");
+        orderBuilder.setAppetizer(this.appetizerRecord);
+        orderBuilder.setMainCourse(this.mainCourseRecord);
+        for (
+                int i = 0;
+                i < this.numberOfDecorators;
+                i++
+        ) {
+            orderBuilder.decorateAppetizer(this.appetizerDecoratorRecord);
+            orderBuilder.decorateMainCourse(this.mainCourseDecoratorRecord);
+        }
+        orderBuilder.setBeverage(this.beverageRecord);
+        orderBuilder.setDessert(this.dessertRecord);
+        orderBuilder.setPaymentStrategy(new Pix());
+        return orderBuilder.build();
+    }
+
+    @Benchmark
+    public double getTotalCost() {
+        return this.order.getTotalCost();
+    }
+
+    @Setup
+    public void setUp() {
+        this.appetizerRecord = Query.fetchMenuComponentById("pao_de_alho").getFirst();
+        this.appetizerDecoratorRecord = Query.fetchMenuComponentById("mucarela").getFirst();
+        this.beverageRecord = Query.fetchMenuComponentById("caipirinha").getFirst();
+        this.dessertRecord = Query.fetchMenuComponentById("brigadeiro").getFirst();
+        this.mainCourseRecord = Query.fetchMenuComponentById("feijoada").getFirst();
+        this.mainCourseDecoratorRecord = Query.fetchMenuComponentById("farofa").getFirst();
+        this.order = this.build();
+    }
+
+}
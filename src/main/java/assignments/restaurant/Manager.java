@@ -6,6 +6,9 @@
 
 package assignments.restaurant;
 
+import assignments.restaurant.app.codec.MessageCodecType;
+import assignments.restaurant.app.server.OverflowPolicyType;
+
 /*
  * Design Pattern: Singleton
  *
@@ -34,6 +37,10 @@ public class Manager {
         return 29100;
     }
 
+    public synchronized long getFinishedOrderRetentionInSeconds() {
+        return 300;
+    }
+
     public synchronized String getHost() {
         return "localhost";
     }
@@ -42,4 +49,52 @@ public class Manager {
         return 5;
     }
 
+    public synchronized int getMaximumOfOrders() {
+        return 1000;
+    }
+
+    public synchronized long getMaximumOfOutboundBytes() {
+        return 1024 * 1024;
+    }
+
+    public synchronized MessageCodecType getMessageCodecType() {
+        return MessageCodecType.Binary;
+    }
+
+    public synchronized long getMetricsDumpIntervalInSeconds() {
+        return 10;
+    }
+
+    public synchronized int getNumberOfEventLoops() {
+        return 2;
+    }
+
+    public synchronized int getNumberOfWorkers() {
+        return 4;
+    }
+
+    public synchronized int getOutboundQueueCapacity() {
+        return 256;
+    }
+
+    public synchronized OverflowPolicyType getOverflowPolicyType() {
+        return OverflowPolicyType.DropAndResync;
+    }
+
+    public synchronized int getSerializationResetInterval() {
+        return 64;
+    }
+
+    public synchronized int getSerializationRetainedObjectsLimit() {
+        return 4096;
+    }
+
+    public synchronized long getSnapshotIntervalInSeconds() {
+        return 60;
+    }
+
+    public synchronized long getSweepIntervalInSeconds() {
+        return 10;
+    }
+
 }
@@ -6,6 +6,11 @@
 
 package assignments.restaurant.app.client;
 
+import assignments.restaurant.Manager;
+import assignments.restaurant.app.codec.MessageCodec;
+import assignments.restaurant.app.codec.MessageInput;
+import assignments.restaurant.app.codec.MessageOutput;
+
 import java.io.*;
 import java.net.Socket;
 
@@ -47,8 +52,13 @@ public class Client {
         try {
             Socket socket = new Socket(host, port);
 
-            ObjectOutputStream sendToServer = new ObjectOutputStream(socket.getOutputStream());
-            ObjectInputStream receiveFromServer = new ObjectInputStream(socket.getInputStream());
+            var messageStreams = MessageCodec.connect(
+                    socket.getInputStream(),
+                    socket.getOutputStream(),
+                    Manager.getInstance().getMessageCodecType()
+                                                     );
+            MessageOutput sendToServer = messageStreams.output();
+            MessageInput receiveFromServer = messageStreams.input();
             BufferedReader scanner = new BufferedReader(new InputStreamReader(System.in));
 
             UserInterface userInterface = getUserInterface(
@@ -76,8 +86,8 @@ public class Client {
     protected static UserInterface getUserInterface(
             UserInterfaceType userInterfaceType,
             BufferedReader scanner,
-            ObjectInputStream receiveFromServer,
-            ObjectOutputStream sendToServer,
+            MessageInput receiveFromServer,
+            MessageOutput sendToServer,
             PrintStream clientPrintStream
                                                    ) {
         UserInterface userInterface;
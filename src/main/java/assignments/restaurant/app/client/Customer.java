@@ -6,7 +6,12 @@
 
 package assignments.restaurant.app.client;
 
+import assignments.restaurant.app.codec.MessageInput;
+import assignments.restaurant.app.codec.MessageOutput;
+import assignments.restaurant.app.server.MenuSlice;
 import assignments.restaurant.app.server.Request;
+import assignments.restaurant.app.server.Response;
+import assignments.restaurant.app.server.ResponseType;
 import assignments.restaurant.component.CategoryType;
 import assignments.restaurant.cuisine.CuisineType;
 import assignments.restaurant.data.*;
@@ -19,20 +24,21 @@ import assignments.restaurant.order.payment.PaymentType;
 import assignments.restaurant.order.payment.Pix;
 
 import java.io.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.List;
 import java.util.function.BiConsumer;
 
 public class Customer
         extends UserInterface {
 
-    private CuisineType cuisineType;
-    private String customerName;
-    private OrderBuilder orderBuilder;
+    private final MenuCache    menuCache = new MenuCache();
+    private       CuisineType  cuisineType;
+    private       String       customerName;
+    private       OrderBuilder orderBuilder;
 
     public Customer(
             BufferedReader scanner,
-            ObjectInputStream receiveFromServer,
-            ObjectOutputStream sendToServer,
+            MessageInput receiveFromServer,
+            MessageOutput sendToServer,
             PrintStream clientPrintStream
                    ) {
         super(scanner, receiveFromServer, sendToServer, clientPrintStream);
@@ -101,12 +107,53 @@ public class Customer
 
         Order order = this.orderBuilder.build();
         Request request = Request.sendOrder(order);
-        this.sendToServer.writeObject(request);
-        this.sendToServer.flush();
+        this.sendToServer.write(request);
+        this.awaitResponse(request);
 
         this.clientPrintStream.println("Seu pedido foi recebido com sucesso!");
     }
 
+    /**
+     * Waits for the response to a request, skipping the order updates the server sends to every client meanwhile.
+     * The announcements of a new menu are not skipped, though, since they make the cached menu stale.
+     *
+     * @param request The request sent.
+     * @return The response with the same correlation id as the request.
+     * @throws IOException if the connection fails before the response arrives.
+     */
+    private Response awaitResponse(Request request)
+            throws IOException {
+        try {
+            while (true) {
+                if (this.receiveFromServer.read() instanceof Response response) {
+                    if (ResponseType.MenuChanged == response.getResponseType()) {
+                        this.menuCache.invalidate(response.getMenuVersion());
+                    }
+                    else if (request.getCorrelationId() == response.getCorrelationId()) {
+                        return response;
+                    }
+                }
+            }
+        }
+        catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Fetches a part of the menu from the server, which only sends it again if the menu changed since it was cached.
+     *
+     * @param menuSlice The part of the menu.
+     * @return The menu components of the part.
+     * @throws IOException if the menu could not be fetched.
+     */
+    private List<MenuComponentRecord> fetchMenu(MenuSlice menuSlice)
+            throws IOException {
+        var request = Request.retrieveMenu(menuSlice, this.menuCache.getVersion(menuSlice));
+        this.sendToServer.write(request);
+        return this.menuCache.update(menuSlice, this.awaitResponse(request));
+    }
+
     private void pickOrderCategory()
             throws IOException {
         this.clientPrintStream.println("Tipos de pedido:");
@@ -153,11 +200,11 @@ public class Customer
             throws IOException {
         this.clientPrintStream.println(categoryType.toString() + ":");
 
-        var menuComponentsRecords = Query.fetchAllMenuComponents(
+        var menuComponentsRecords = this.fetchMenu(new MenuSlice(
                 RestrictByCuisine.convertCuisineType(this.cuisineType),
                 RestrictByCategory.convertCategoryType(categoryType),
                 RestrictByDecorator.IsNotDecorator
-                                                                );
+        ));
         this.printMenu(menuComponentsRecords);
 
         var menuComponentOption = this.menuComponentValidationLoop(menuComponentsRecords);
@@ -182,11 +229,11 @@ public class Customer
         if (wishToDecorate.equalsIgnoreCase("S")) {
             this.clientPrintStream.println("Acompanhamentos:");
 
-            var menuComponentsDecoratorsRecords = Query.fetchAllMenuComponents(
+            var menuComponentsDecoratorsRecords = this.fetchMenu(new MenuSlice(
                     RestrictByCuisine.convertCuisineType(this.cuisineType),
                     RestrictByCategory.convertCategoryType(categoryType),
                     RestrictByDecorator.IsDecorator
-                                                                              );
+            ));
             this.printMenu(menuComponentsDecoratorsRecords);
 
             var menuComponentDecoratorOption = this.menuComponentValidationLoop(menuComponentsDecoratorsRecords);
@@ -222,7 +269,7 @@ public class Customer
         this.orderBuilder.setPaymentStrategy(paymentStrategy);
     }
 
-    private void printMenu(CopyOnWriteArrayList<MenuComponentRecord> menu) {
+    private void printMenu(List<MenuComponentRecord> menu) {
         for (
                 int i = 0;
                 i < menu.size();
@@ -234,7 +281,7 @@ public class Customer
         }
     }
 
-    private String menuComponentValidationLoop(CopyOnWriteArrayList<MenuComponentRecord> menuComponentsRecords)
+    private String menuComponentValidationLoop(List<MenuComponentRecord> menuComponentsRecords)
             throws IOException {
         return this.readString(
                 "Digite o número do item que deseja:",
@@ -6,33 +6,38 @@
 
 package assignments.restaurant.app.client;
 
+import assignments.restaurant.app.codec.MessageInput;
+import assignments.restaurant.app.codec.MessageOutput;
+import assignments.restaurant.app.server.OrderChange;
 import assignments.restaurant.app.server.Request;
 import assignments.restaurant.app.server.Response;
 import assignments.restaurant.app.server.ResponseType;
 import assignments.restaurant.order.Order;
 
 import java.io.*;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.*;
 
 public class Employee
         extends UserInterface {
 
-    private final    ExecutorService                   executor;
     private final    Thread                            interactiveThread;
     private final    Thread                            listenerThread;
     private volatile boolean                           askedForFinish = false;
+    private volatile boolean                           awaitingOrders = true;
     private          String                            employeeName;
     private volatile ConcurrentHashMap<Integer, Order> orders;
     private volatile boolean                           running        = true;
+    private volatile long                              version        = 0;
 
     public Employee(
             BufferedReader scanner,
-            ObjectInputStream receiveFromServer,
-            ObjectOutputStream sendToServer,
+            MessageInput receiveFromServer,
+            MessageOutput sendToServer,
             PrintStream clientPrintStream
                    ) {
         super(scanner, receiveFromServer, sendToServer, clientPrintStream);
-        this.executor = Executors.newSingleThreadExecutor();
         this.orders = new ConcurrentHashMap<>();
 
         this.listenerThread = new Thread(() -> {
@@ -44,6 +49,7 @@ public class Employee
             catch (IOException |
                    ClassNotFoundException e) {
                 e.printStackTrace();
+                this.running = false;
             }
         });
 
@@ -60,41 +66,79 @@ public class Employee
         });
     }
 
+    /**
+     * Reads the next message from the server on the listener thread.
+     * The read is never abandoned, since a message read by an abandoned read would be lost, and a lost change would
+     * only be noticed at the next one.
+     *
+     * @throws IOException            if the message could not be read.
+     * @throws ClassNotFoundException if the message is of an unknown class.
+     */
     private void listenForUpdates()
             throws IOException, ClassNotFoundException {
-
-        Future<Object> future = this.executor.submit(this.receiveFromServer::readObject);
-
-        Object receivedObject = null;
-        try {
-            receivedObject = future.get(5, TimeUnit.SECONDS);
-        }
-        catch (TimeoutException e) {
-            future.cancel(true); // Cancel the task
-        }
-        catch (ExecutionException |
-               InterruptedException e) {
-            e.printStackTrace();
-        }
+        Object receivedObject = this.receiveFromServer.read();
 
         if (receivedObject instanceof Response response) {
             if (ResponseType.SendOrders == response.getResponseType()) {
                 var orders = response.getOrders();
                 this.orders = new ConcurrentHashMap<>(orders);
+                this.version = response.getVersion();
+                this.awaitingOrders = false;
                 this.printOrders(this.orders);
             }
+            if (ResponseType.SendOrderChanges == response.getResponseType()) {
+                if (this.applyOrderChanges(response.getOrderChanges())) {
+                    this.printOrders(this.orders);
+                }
+            }
             if (ResponseType.confirmFinishedConnection == response.getResponseType()) {
                 System.err.println("O servidor confirmou o encerramento da conexão.");
                 this.running = false;
                 System.err.println("Definiu a flag de execução como falsa.");
             }
         }
-        try {
-            Thread.sleep(1000);  // Wait for updates
+    }
+
+    /**
+     * Applies the changes published by the server to the local orders, in version order.
+     * Changes already applied are skipped, and a missing version means some change was lost, so the whole orders
+     * list is requested again and further changes are ignored until it arrives.
+     *
+     * @param orderChanges The changes to apply.
+     * @return Whether any change was applied.
+     * @throws IOException if the orders could not be requested again.
+     */
+    protected boolean applyOrderChanges(List<OrderChange> orderChanges)
+            throws IOException {
+        if (this.awaitingOrders) {
+            return false;
         }
-        catch (InterruptedException e) {
-            e.printStackTrace();
+
+        boolean changed = false;
+        for (var orderChange : orderChanges) {
+            if (orderChange.version() <= this.version) {
+                continue;
+            }
+
+            var order = this.orders.get(orderChange.orderId());
+            boolean isMissingOrder = switch (orderChange.orderChangeType()) {
+                case Added -> false;
+                case Advanced, Removed -> null == order;
+            };
+            if (this.version + 1 != orderChange.version() || isMissingOrder) {
+                this.retrieveOrders();
+                return changed;
+            }
+
+            switch (orderChange.orderChangeType()) {
+                case Added -> this.orders.put(orderChange.orderId(), orderChange.order());
+                case Advanced -> order.advanceTo(orderChange.stateType());
+                case Removed -> this.orders.remove(orderChange.orderId());
+            }
+            this.version = orderChange.version();
+            changed = true;
         }
+        return changed;
     }
 
     private void interactionLoop()
@@ -115,15 +159,21 @@ public class Employee
             keys = orders.keySet().toArray(new Integer[0]);
         }
 
-        int orderId = this.pickOrder(keys);
+        var orderIds = this.pickOrders(keys);
 
-        if (0 == orderId) {
+        if (orderIds.contains(0)) {
             System.err.println("Recebeu 0 como opção.");
             this.finishConnection();
             return;
         }
 
-        this.advanceOrder(orderId);
+        // Many orders are advanced by a single request, which the server applies as a single change
+        if (1 == orderIds.size()) {
+            this.advanceOrder(orderIds.getFirst());
+        }
+        else {
+            this.send(Request.advanceOrderBatch(orderIds));
+        }
     }
 
     protected void printOrders(ConcurrentHashMap<Integer, Order> orders) {
@@ -144,16 +194,27 @@ public class Employee
         }
     }
 
-    private Integer pickOrder(Integer[] orderIds)
+    private static boolean isValidOptions(String options, Integer[] validOptions) {
+        return Arrays.stream(options.split(","))
+                     .allMatch(option -> Employee.isValidOption(option.strip(), validOptions));
+    }
+
+    /**
+     * Reads the orders to advance, which may be many, separated by commas.
+     *
+     * @param orderIds The ids of the known orders.
+     * @return The ids picked, or a list with just zero to finish.
+     * @throws IOException if the input could not be read.
+     */
+    private List<Integer> pickOrders(Integer[] orderIds)
             throws IOException {
-        var orderOption = this.readString(
+        var orderOptions = this.readString(
                 null,
                 null,
                 String::strip,
-                s -> null != s && !s.isBlank() &&
-                     (Employee.isValidOption(s, orderIds) || "0".equals(s))
-                                         );
-        return Integer.parseInt(orderOption);
+                s -> null != s && !s.isBlank() && ("0".equals(s) || Employee.isValidOptions(s, orderIds))
+                                          );
+        return Arrays.stream(orderOptions.split(",")).map(String::strip).map(Integer::parseInt).toList();
     }
 
     private void finishConnection()
@@ -161,16 +222,14 @@ public class Employee
         this.askedForFinish = true;
         System.err.println("Definiu a flag de pedido de finalização como verdadeira.");
         Request request = Request.finishConnection();
-        this.sendToServer.writeObject(request);
-        this.sendToServer.flush();
+        this.send(request);
         System.err.println("Enviou pedido de finalização para o servidor.");
     }
 
     private void advanceOrder(int orderId)
             throws IOException {
         Request request = Request.advanceOrder(orderId);
-        this.sendToServer.writeObject(request);
-        this.sendToServer.flush();
+        this.send(request);
     }
 
     @Override
@@ -208,8 +267,6 @@ public class Employee
         while (true) {
             if (!this.running) {
                 System.err.println("A flag de execução foi desativada.");
-                this.executor.shutdown();
-                this.executor.close();
                 return;
             }
         }
@@ -230,9 +287,15 @@ public class Employee
 
     private void retrieveOrders()
             throws IOException {
+        this.awaitingOrders = true;
         Request request = Request.retrieveOrders();
-        this.sendToServer.writeObject(request);
-        this.sendToServer.flush();
+        this.send(request);
+    }
+
+    // Both the listener and the interactive threads send requests, so the writes must not interleave
+    private synchronized void send(Request request)
+            throws IOException {
+        this.sendToServer.write(request);
     }
 
 }
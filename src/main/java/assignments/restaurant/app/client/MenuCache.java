@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.client;
+
+import assignments.restaurant.app.server.MenuSlice;
+import assignments.restaurant.app.server.Response;
+import assignments.restaurant.app.server.ResponseType;
+import assignments.restaurant.data.MenuComponentRecord;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the parts of the menu a client fetched from the server, along with the version of the menu each came from.
+ * <p>
+ * The client asks for a part of the menu with the version it has cached, and the server only sends the part again if
+ * the menu changed since, answering that it was not modified otherwise. When the server announces a new menu, the parts
+ * from older versions are dropped, since they will be sent again anyway.
+ */
+public class MenuCache {
+
+    private final Map<MenuSlice, Entry> entries = new HashMap<>();
+
+    /**
+     * Gets the version of the menu a part was cached from.
+     *
+     * @param menuSlice The part of the menu.
+     * @return The version, or zero if the part is not cached.
+     */
+    public long getVersion(MenuSlice menuSlice) {
+        var entry = this.entries.get(menuSlice);
+        return null == entry ? 0 : entry.menuVersion();
+    }
+
+    /**
+     * Drops the parts of the menu cached from versions older than the one the server announced.
+     *
+     * @param menuVersion The version of the new menu.
+     */
+    public void invalidate(long menuVersion) {
+        this.entries.values().removeIf(entry -> entry.menuVersion() < menuVersion);
+    }
+
+    /**
+     * Applies the answer of the server to a request for a part of the menu.
+     *
+     * @param menuSlice The part of the menu asked for.
+     * @param response  The answer of the server.
+     * @return The menu components of the part, either sent by the server or taken from the cache.
+     * @throws IOException if the server did not answer with the menu, or claims a part that is not cached is current.
+     */
+    public List<MenuComponentRecord> update(MenuSlice menuSlice, Response response)
+            throws IOException {
+        if (ResponseType.SendMenu == response.getResponseType()) {
+            this.entries.put(menuSlice, new Entry(response.getMenuVersion(), response.getMenuComponents()));
+            return response.getMenuComponents();
+        }
+        var entry = this.entries.get(menuSlice);
+        if (ResponseType.MenuNotModified != response.getResponseType() || null == entry) {
+            throw new IOException("Resposta inesperada ao pedir o cardápio: " + response.getResponseType());
+        }
+        return entry.menuComponents();
+    }
+
+    private record Entry(long menuVersion, List<MenuComponentRecord> menuComponents) {
+
+    }
+
+}
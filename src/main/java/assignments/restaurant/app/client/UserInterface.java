@@ -6,6 +6,8 @@
 
 package assignments.restaurant.app.client;
 
+import assignments.restaurant.app.codec.MessageInput;
+import assignments.restaurant.app.codec.MessageOutput;
 import assignments.restaurant.component.Decorator;
 import assignments.restaurant.component.MenuComponent;
 import assignments.restaurant.data.MenuComponentRecord;
@@ -24,15 +26,15 @@ import java.util.function.Predicate;
  */
 public abstract class UserInterface {
 
-    protected final PrintStream        clientPrintStream;
-    protected final ObjectInputStream  receiveFromServer;
-    protected final BufferedReader     scanner;
-    protected final ObjectOutputStream sendToServer;
+    protected final PrintStream    clientPrintStream;
+    protected final MessageInput   receiveFromServer;
+    protected final BufferedReader scanner;
+    protected final MessageOutput  sendToServer;
 
     public UserInterface(
             BufferedReader scanner,
-            ObjectInputStream receiveFromServer,
-            ObjectOutputStream sendToServer,
+            MessageInput receiveFromServer,
+            MessageOutput sendToServer,
             PrintStream clientPrintStream
                         ) {
         this.scanner = scanner;
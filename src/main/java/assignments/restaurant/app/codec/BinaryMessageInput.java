@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.codec;
+
+import assignments.restaurant.app.server.MenuSlice;
+import assignments.restaurant.app.server.OrderChange;
+import assignments.restaurant.app.server.OrderChangeType;
+import assignments.restaurant.app.server.Request;
+import assignments.restaurant.app.server.RequestType;
+import assignments.restaurant.app.server.Response;
+import assignments.restaurant.app.server.ResponseType;
+import assignments.restaurant.component.CategoryType;
+import assignments.restaurant.cuisine.CuisineType;
+import assignments.restaurant.data.MenuComponentRecord;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.data.RestrictByCategory;
+import assignments.restaurant.data.RestrictByCuisine;
+import assignments.restaurant.data.RestrictByDecorator;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.OrderBuilder;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.Cash;
+import assignments.restaurant.order.payment.CreditCard;
+import assignments.restaurant.order.payment.PaymentStrategy;
+import assignments.restaurant.order.payment.PaymentType;
+import assignments.restaurant.order.payment.Pix;
+import assignments.restaurant.order.state.StateType;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Reads messages in the binary protocol written by {@link BinaryMessageOutput}.
+ * Orders are rebuilt through the OrderBuilder from the menu records written with their components, keeping the costs
+ * they had when the order was made. The records read are kept for the whole stream, since later frames only refer to
+ * them by index. Peers older than version 6 only write the ids of the components, which are then looked up in the
+ * local menu.
+ */
+public class BinaryMessageInput
+        implements MessageInput {
+
+    private final List<MenuComponentRecord> menuComponentRecords = new ArrayList<>();
+    private final DataInputStream           receiveFromPeer;
+    private final int                       version;
+    private       DataInputStream           payload;
+
+    public BinaryMessageInput(InputStream inputStream, int version) {
+        this.receiveFromPeer = new DataInputStream(inputStream);
+        this.version = version;
+    }
+
+    private static MenuComponentRecord findMenuComponentRecord(String id, long cents)
+            throws IOException {
+        var records = Query.fetchMenuComponentById(id);
+        if (records.isEmpty()) {
+            throw new IOException("Componente de menu desconhecido: " + id);
+        }
+        var record = records.getFirst();
+        return new MenuComponentRecord(
+                record.id(),
+                record.category(),
+                record.cuisine(),
+                record.isDecorator(),
+                record.name(),
+                record.description(),
+                cents / 100.0d
+        );
+    }
+
+    @Override
+    public void close()
+            throws IOException {
+        this.receiveFromPeer.close();
+    }
+
+    protected int getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public Object read()
+            throws IOException {
+        int length = this.receiveFromPeer.readInt();
+        // The length comes from the peer, so it is checked before a buffer that large is allocated
+        if (0 > length || MessageCodec.maximumFrameSize < length) {
+            throw new IOException("Tamanho de mensagem inválido: " + length);
+        }
+        byte[] frame = new byte[length];
+        this.receiveFromPeer.readFully(frame);
+        this.payload = new DataInputStream(new ByteArrayInputStream(frame));
+
+        try {
+            return switch (this.payload.readByte()) {
+                case MessageCodec.requestTag -> this.readRequest();
+                case MessageCodec.responseTag -> this.readResponse();
+                default -> throw new IOException("Tipo de mensagem desconhecido.");
+            };
+        }
+        catch (IllegalArgumentException |
+               IllegalStateException e) {
+            throw new IOException("Mensagem inválida recebida.", e);
+        }
+    }
+
+    private <T extends Enum<T>> T readEnum(T[] values)
+            throws IOException {
+        int ordinal = this.payload.readUnsignedByte();
+        if (values.length <= ordinal) {
+            throw new IOException("Valor desconhecido recebido: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private MenuComponentRecord readMenuComponentRecord()
+            throws IOException {
+        return new MenuComponentRecord(
+                this.payload.readUTF(),
+                this.readEnum(CategoryType.values()),
+                this.readEnum(CuisineType.values()),
+                this.payload.readBoolean(),
+                this.payload.readUTF(),
+                this.payload.readUTF(),
+                this.payload.readLong() / 100.0
+        );
+    }
+
+    private MenuComponentRecord readLayerRecord()
+            throws IOException {
+        int index = this.payload.readInt();
+        if (0 > index || this.menuComponentRecords.size() < index) {
+            throw new IOException("Registro de menu desconhecido: " + index);
+        }
+        if (this.menuComponentRecords.size() > index) {
+            return this.menuComponentRecords.get(index);
+        }
+        var menuComponentRecord = new MenuComponentRecord(
+                this.payload.readUTF(),
+                this.readEnum(CategoryType.values()),
+                this.readEnum(CuisineType.values()),
+                false,
+                this.payload.readUTF(),
+                this.payload.readUTF(),
+                0
+        );
+        this.menuComponentRecords.add(menuComponentRecord);
+        return menuComponentRecord;
+    }
+
+    private void readMenuComponent(Consumer<MenuComponentRecord> set, Consumer<MenuComponentRecord> decorate)
+            throws IOException {
+        int layers = this.payload.readUnsignedByte();
+        if (1 > layers) {
+            throw new IOException("Componente de menu vazio recebido.");
+        }
+        for (
+                int i = 0;
+                i < layers;
+                i++
+        ) {
+            MenuComponentRecord menuComponentRecord;
+            if (MessageCodec.orderRecordVersion <= this.version) {
+                var layerRecord = this.readLayerRecord();
+                long cents = this.payload.readInt();
+                menuComponentRecord = new MenuComponentRecord(
+                        layerRecord.id(),
+                        layerRecord.category(),
+                        layerRecord.cuisine(),
+                        0 < i,
+                        layerRecord.name(),
+                        layerRecord.description(),
+                        cents / 100.0d
+                );
+            }
+            else {
+                String id = this.payload.readUTF();
+                long cents = this.payload.readInt();
+                menuComponentRecord = BinaryMessageInput.findMenuComponentRecord(id, cents);
+            }
+            if (0 == i) {
+                set.accept(menuComponentRecord);
+            }
+            else {
+                decorate.accept(menuComponentRecord);
+            }
+        }
+    }
+
+    private Order readOrder()
+            throws IOException {
+        var orderBuilder = new OrderBuilder(this.readEnum(OrderCategoryType.values()));
+        orderBuilder.setCustomerName(this.payload.readUTF());
+        orderBuilder.setPaymentStrategy(this.readPaymentStrategy());
+        var stateType = this.readEnum(StateType.values());
+        this.readMenuComponent(orderBuilder::setAppetizer, orderBuilder::decorateAppetizer);
+        this.readMenuComponent(orderBuilder::setMainCourse, orderBuilder::decorateMainCourse);
+        this.readMenuComponent(orderBuilder::setBeverage, orderBuilder::decorateBeverage);
+        this.readMenuComponent(orderBuilder::setDessert, orderBuilder::decorateDessert);
+
+        var order = orderBuilder.build();
+        order.advanceTo(stateType);
+        return order;
+    }
+
+    private OrderChange readOrderChange()
+            throws IOException {
+        long version = this.payload.readLong();
+        var orderChangeType = this.readEnum(OrderChangeType.values());
+        int orderId = this.payload.readInt();
+        return switch (orderChangeType) {
+            case Added -> OrderChange.added(version, orderId, this.readOrder());
+            case Advanced -> OrderChange.advanced(version, orderId, this.readEnum(StateType.values()));
+            case Removed -> OrderChange.removed(version, orderId);
+        };
+    }
+
+    private PaymentStrategy readPaymentStrategy()
+            throws IOException {
+        return switch (this.readEnum(PaymentType.values())) {
+            case Cash -> new Cash();
+            case CreditCard -> new CreditCard(this.payload.readUTF());
+            case Pix -> new Pix();
+        };
+    }
+
+    private int readCorrelationId()
+            throws IOException {
+        return MessageCodec.correlationVersion <= this.version ? this.payload.readInt() : 0;
+    }
+
+    private <T extends Enum<T>> T readRestriction(T[] values)
+            throws IOException {
+        // Zero stands for no restriction
+        int restriction = this.payload.readUnsignedByte();
+        if (values.length < restriction) {
+            throw new IOException("Valor desconhecido recebido: " + restriction);
+        }
+        return 0 == restriction ? null : values[restriction - 1];
+    }
+
+    private Request readRequest()
+            throws IOException {
+        var requestType = this.readEnum(RequestType.values());
+        int correlationId = this.readCorrelationId();
+        var request = switch (requestType) {
+            case RetrieveOrders -> Request.retrieveOrders();
+            case SendOrder -> Request.sendOrder(this.readOrder());
+            case AdvanceOrder -> Request.advanceOrder(this.payload.readInt());
+            case FinishConnection -> Request.finishConnection();
+            case SendOrderBatch -> {
+                int size = this.payload.readInt();
+                List<Order> orders = new ArrayList<>();
+                for (
+                        int i = 0;
+                        i < size;
+                        i++
+                ) {
+                    orders.add(this.readOrder());
+                }
+                yield Request.sendOrderBatch(orders);
+            }
+            case AdvanceOrderBatch -> {
+                int size = this.payload.readInt();
+                List<Integer> orderIds = new ArrayList<>();
+                for (
+                        int i = 0;
+                        i < size;
+                        i++
+                ) {
+                    orderIds.add(this.payload.readInt());
+                }
+                yield Request.advanceOrderBatch(orderIds);
+            }
+            case RetrieveMenu -> {
+                long menuVersion = this.payload.readLong();
+                var menuSlice = new MenuSlice(
+                        this.readRestriction(RestrictByCuisine.values()),
+                        this.readRestriction(RestrictByCategory.values()),
+                        this.readRestriction(RestrictByDecorator.values())
+                );
+                yield Request.retrieveMenu(menuSlice, menuVersion);
+            }
+        };
+        return request.withCorrelationId(correlationId);
+    }
+
+    private Response readResponse()
+            throws IOException {
+        var responseType = this.readEnum(ResponseType.values());
+        int correlationId = this.readCorrelationId();
+        return switch (responseType) {
+            case ConfirmReceivedOrder -> Response.confirmReceivedOrder(correlationId);
+            case ConfirmAdvancedOrder -> Response.confirmAdvancedOrder(correlationId);
+            case SendOrders -> {
+                long version = this.payload.readLong();
+                int size = this.payload.readInt();
+                var orders = new ConcurrentHashMap<Integer, Order>();
+                for (
+                        int i = 0;
+                        i < size;
+                        i++
+                ) {
+                    int orderId = this.payload.readInt();
+                    orders.put(orderId, this.readOrder());
+                }
+                yield Response.sendOrders(orders, version, correlationId);
+            }
+            case SendOrderChanges -> {
+                int size = this.payload.readInt();
+                List<OrderChange> orderChanges = new ArrayList<>();
+                for (
+                        int i = 0;
+                        i < size;
+                        i++
+                ) {
+                    orderChanges.add(this.readOrderChange());
+                }
+                yield Response.sendOrderChanges(orderChanges);
+            }
+            case confirmFinishedConnection -> Response.confirmFinishedConnection(correlationId);
+            case MenuChanged -> Response.menuChanged(this.payload.readLong());
+            case SendMenu -> {
+                long menuVersion = this.payload.readLong();
+                int size = this.payload.readInt();
+                List<MenuComponentRecord> menuComponents = new ArrayList<>();
+                for (
+                        int i = 0;
+                        i < size;
+                        i++
+                ) {
+                    menuComponents.add(this.readMenuComponentRecord());
+                }
+                yield Response.sendMenu(menuComponents, menuVersion, correlationId);
+            }
+            case MenuNotModified -> Response.menuNotModified(this.payload.readLong(), correlationId);
+        };
+    }
+
+}
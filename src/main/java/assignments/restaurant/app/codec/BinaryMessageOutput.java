@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.codec;
+
+import assignments.restaurant.app.server.OrderChange;
+import assignments.restaurant.app.server.Request;
+import assignments.restaurant.app.server.Response;
+import assignments.restaurant.app.server.ResponseType;
+import assignments.restaurant.component.Decorator;
+import assignments.restaurant.component.MenuComponent;
+import assignments.restaurant.data.MenuComponentRecord;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.payment.CreditCard;
+import assignments.restaurant.order.payment.PaymentStrategy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes messages in the binary protocol.
+ * <p>
+ * Every message is a frame made of its length followed by its payload. Enums are written as their ordinal in a single
+ * byte, costs as a fixed-point number of cents, and menu components as their menu records, from the innermost
+ * component to the outermost decorator, instead of the whole object graph.
+ * <p>
+ * The menu records are written in full, and not just their ids, so a peer can rebuild orders with items its own menu
+ * does not have, such as the ones the server added to its menu, or stored orders with items removed from it since.
+ * Each record is only written in full the first time the stream carries it, and every later component with the same
+ * record, in the same frame or in a later one, only writes its index. So a connection pays for each menu item once,
+ * and its frames are about as small as the ids alone made them. A stream that must be read from any frame on, such as
+ * a record of the journal, is written with a new output for each frame.
+ */
+public class BinaryMessageOutput
+        implements MessageOutput {
+
+    private final ByteArrayOutputStream             frame                = new ByteArrayOutputStream();
+    private final Map<MenuComponentRecord, Integer> menuComponentRecords = new HashMap<>();
+    private final DataOutputStream                  payload;
+    private final DataOutputStream                  sendToPeer;
+    private final int                               version;
+    private       long                              writtenBytes         = 0;
+
+    public BinaryMessageOutput(OutputStream outputStream, int version) {
+        this.payload = new DataOutputStream(this.frame);
+        this.sendToPeer = new DataOutputStream(outputStream);
+        this.version = version;
+    }
+
+    private static long toCents(double cost) {
+        return Math.round(cost * 100);
+    }
+
+    @Override
+    public void close()
+            throws IOException {
+        this.sendToPeer.close();
+    }
+
+    protected int getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public long getWrittenBytes() {
+        return this.writtenBytes;
+    }
+
+    @Override
+    public void write(Object message)
+            throws IOException {
+        boolean isMenuChanged = message instanceof Response response &&
+                                ResponseType.MenuChanged == response.getResponseType();
+        if (isMenuChanged && MessageCodec.menuVersion > this.version) {
+            // Older peers do not know the notification, and only see the new menu when they next fetch it
+            return;
+        }
+        this.frame.reset();
+        int knownRecords = this.menuComponentRecords.size();
+        try {
+            switch (message) {
+                case Request request -> this.writeRequest(request);
+                case Response response -> this.writeResponse(response);
+                default -> throw new IllegalArgumentException("Mensagem não suportada: " + message);
+            }
+            this.sendToPeer.writeInt(this.frame.size());
+            this.frame.writeTo(this.sendToPeer);
+            this.sendToPeer.flush();
+        }
+        catch (IOException |
+               RuntimeException e) {
+            // The peer only learns the records of the frames it receives
+            this.menuComponentRecords.values().removeIf(index -> knownRecords <= index);
+            throw e;
+        }
+        this.writtenBytes += Integer.BYTES + this.frame.size();
+    }
+
+    private void writeLayerRecord(MenuComponent component)
+            throws IOException {
+        boolean isDecorator = component instanceof Decorator;
+        var menuComponentRecord = new MenuComponentRecord(
+                component.getId(),
+                component.getCategory(),
+                component.getCuisine(),
+                isDecorator,
+                isDecorator ? ((Decorator) component).getDecorationName() : component.getName(),
+                isDecorator ? ((Decorator) component).getDecorationDescription() : component.getDescription(),
+                0
+        );
+        var index = this.menuComponentRecords.get(menuComponentRecord);
+        if (null != index) {
+            this.payload.writeInt(index);
+            return;
+        }
+        this.payload.writeInt(this.menuComponentRecords.size());
+        this.menuComponentRecords.put(menuComponentRecord, this.menuComponentRecords.size());
+        this.payload.writeUTF(menuComponentRecord.id());
+        this.payload.writeByte(menuComponentRecord.category().ordinal());
+        this.payload.writeByte(menuComponentRecord.cuisine().ordinal());
+        this.payload.writeUTF(menuComponentRecord.name());
+        this.payload.writeUTF(menuComponentRecord.description());
+    }
+
+    private void writeMenuComponent(MenuComponent menuComponent)
+            throws IOException {
+        List<MenuComponent> layers = new ArrayList<>();
+        var layer = menuComponent;
+        layers.addFirst(layer);
+        while (layer instanceof Decorator decorator) {
+            layer = decorator.getDecorated();
+            layers.addFirst(layer);
+        }
+
+        this.payload.writeByte(layers.size());
+        long decoratedCents = 0;
+        for (var component : layers) {
+            if (null == component.getId()) {
+                throw new IOException("O componente de menu não possui identificador: " + component);
+            }
+            // The cost of a decorator includes the decorated component, so only the difference is written
+            long cents = BinaryMessageOutput.toCents(component.getCost());
+            if (MessageCodec.orderRecordVersion <= this.version) {
+                this.writeLayerRecord(component);
+            }
+            else {
+                this.payload.writeUTF(component.getId());
+            }
+            this.payload.writeInt((int) (cents - decoratedCents));
+            decoratedCents = cents;
+        }
+    }
+
+    private void writeOrder(Order order)
+            throws IOException {
+        this.payload.writeByte(order.getCategory().ordinal());
+        this.payload.writeUTF(order.getCustomerName());
+        this.writePaymentStrategy(order.getPaymentStrategy());
+        this.payload.writeByte(order.getStateType().ordinal());
+        this.writeMenuComponent(order.getAppetizer());
+        this.writeMenuComponent(order.getMainCourse());
+        this.writeMenuComponent(order.getBeverage());
+        this.writeMenuComponent(order.getDessert());
+    }
+
+    private void writeOrderChange(OrderChange orderChange)
+            throws IOException {
+        this.payload.writeLong(orderChange.version());
+        this.payload.writeByte(orderChange.orderChangeType().ordinal());
+        this.payload.writeInt(orderChange.orderId());
+        switch (orderChange.orderChangeType()) {
+            case Added -> this.writeOrder(orderChange.order());
+            case Advanced -> this.payload.writeByte(orderChange.stateType().ordinal());
+            case Removed -> {
+            }
+        }
+    }
+
+    private void writePaymentStrategy(PaymentStrategy paymentStrategy)
+            throws IOException {
+        this.payload.writeByte(paymentStrategy.getPaymentType().ordinal());
+        if (paymentStrategy instanceof CreditCard creditCard) {
+            this.payload.writeUTF(creditCard.getCardNumber());
+        }
+    }
+
+    private void requireBatches()
+            throws IOException {
+        if (MessageCodec.batchVersion > this.version) {
+            throw new IOException("Pedidos em lote exigem a versão " + MessageCodec.batchVersion + " do protocolo.");
+        }
+    }
+
+    private void requireMenuRequests()
+            throws IOException {
+        if (MessageCodec.menuRequestVersion > this.version) {
+            throw new IOException(
+                    "Pedidos de menu exigem a versão " + MessageCodec.menuRequestVersion + " do protocolo.");
+        }
+    }
+
+    private void writeMenuComponentRecord(MenuComponentRecord menuComponentRecord)
+            throws IOException {
+        this.payload.writeUTF(menuComponentRecord.id());
+        this.payload.writeByte(menuComponentRecord.category().ordinal());
+        this.payload.writeByte(menuComponentRecord.cuisine().ordinal());
+        this.payload.writeBoolean(menuComponentRecord.isDecorator());
+        this.payload.writeUTF(menuComponentRecord.name());
+        this.payload.writeUTF(menuComponentRecord.description());
+        this.payload.writeLong(BinaryMessageOutput.toCents(menuComponentRecord.cost()));
+    }
+
+    private void writeRestriction(Enum<?> restriction)
+            throws IOException {
+        // Zero stands for no restriction
+        this.payload.writeByte(null == restriction ? 0 : restriction.ordinal() + 1);
+    }
+
+    private void writeRequest(Request request)
+            throws IOException {
+        this.payload.writeByte(MessageCodec.requestTag);
+        this.payload.writeByte(request.getRequestType().ordinal());
+        if (MessageCodec.correlationVersion <= this.version) {
+            this.payload.writeInt(request.getCorrelationId());
+        }
+        switch (request.getRequestType()) {
+            case SendOrder -> this.writeOrder(request.getOrder());
+            case AdvanceOrder -> this.payload.writeInt(request.getOrderId());
+            case SendOrderBatch -> {
+                this.requireBatches();
+                this.payload.writeInt(request.getOrders().size());
+                for (var order : request.getOrders()) {
+                    this.writeOrder(order);
+                }
+            }
+            case AdvanceOrderBatch -> {
+                this.requireBatches();
+                this.payload.writeInt(request.getOrderIds().size());
+                for (int orderId : request.getOrderIds()) {
+                    this.payload.writeInt(orderId);
+                }
+            }
+            case RetrieveMenu -> {
+                this.requireMenuRequests();
+                this.payload.writeLong(request.getMenuVersion());
+                this.writeRestriction(request.getMenuSlice().restrictByCuisine());
+                this.writeRestriction(request.getMenuSlice().restrictByCategory());
+                this.writeRestriction(request.getMenuSlice().restrictByDecorator());
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void writeResponse(Response response)
+            throws IOException {
+        this.payload.writeByte(MessageCodec.responseTag);
+        this.payload.writeByte(response.getResponseType().ordinal());
+        if (MessageCodec.correlationVersion <= this.version) {
+            this.payload.writeInt(response.getCorrelationId());
+        }
+        switch (response.getResponseType()) {
+            case SendOrders -> {
+                this.payload.writeLong(response.getVersion());
+                this.payload.writeInt(response.getOrders().size());
+                for (var entry : response.getOrders().entrySet()) {
+                    this.payload.writeInt(entry.getKey());
+                    this.writeOrder(entry.getValue());
+                }
+            }
+            case SendOrderChanges -> {
+                this.payload.writeInt(response.getOrderChanges().size());
+                for (var orderChange : response.getOrderChanges()) {
+                    this.writeOrderChange(orderChange);
+                }
+            }
+            case MenuChanged, MenuNotModified -> this.payload.writeLong(response.getMenuVersion());
+            case SendMenu -> {
+                this.payload.writeLong(response.getMenuVersion());
+                this.payload.writeInt(response.getMenuComponents().size());
+                for (var menuComponentRecord : response.getMenuComponents()) {
+                    this.writeMenuComponentRecord(menuComponentRecord);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+}
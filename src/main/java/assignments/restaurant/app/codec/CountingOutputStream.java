@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.codec;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that counts the bytes written through it.
+ */
+class CountingOutputStream
+        extends FilterOutputStream {
+
+    private volatile long writtenBytes = 0;
+
+    CountingOutputStream(OutputStream outputStream) {
+        super(outputStream);
+    }
+
+    long getWrittenBytes() {
+        return this.writtenBytes;
+    }
+
+    @Override
+    public void write(int b)
+            throws IOException {
+        this.out.write(b);
+        this.writtenBytes++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+            throws IOException {
+        this.out.write(b, off, len);
+        this.writtenBytes += len;
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Arrays;
+
+/**
+ * Negotiates the encoding of the messages when a connection starts.
+ * <p>
+ * A client that speaks the binary protocol opens the connection with a hello made of a magic number and the highest
+ * version it supports, and the server answers with the same magic number and the version both sides will use.
+ * A client that uses Java serialization opens the connection with the header of its object stream instead, so the
+ * server tells both apart by the first two bytes and keeps serving such clients as before.
+ * <p>
+ * Version 2 adds the correlation id of requests and responses, which is zero for version 1 peers.
+ * Version 3 adds the requests that send or advance many orders at once.
+ * Version 4 adds the notification that the menu changed, which is not sent to older peers.
+ * Version 5 adds the request for the menu and its responses.
+ * Version 6 writes the menu records of the components of orders, instead of only their ids, so orders with items the
+ * reader does not know can still be rebuilt. Each record is written once per stream, and then referred to by index.
+ */
+public final class MessageCodec {
+
+    static final         int    batchVersion       = 3;
+    static final         int    correlationVersion = 2;
+    static final         int    currentVersion     = 6;
+    private static final byte[] magic              = {'R', 'E', 'S', 'T'};
+    static final         int    maximumFrameSize   = 64 * 1024 * 1024;
+    static final         int    menuRequestVersion = 5;
+    static final         int    menuVersion        = 4;
+    static final         int    orderRecordVersion = 6;
+    static final         byte   requestTag         = 1;
+    static final         byte   responseTag        = 2;
+    private static final int    serializedMagic    = 0xACED;
+
+    private MessageCodec() {
+        throw new IllegalStateException("This is a utility class!");
+    }
+
+    /**
+     * Negotiates the encoding on the server side, following whatever the client chose.
+     *
+     * @param inputStream  The stream of bytes received from the client.
+     * @param outputStream The stream of bytes sent to the client.
+     * @return The streams to exchange messages with the client.
+     * @throws IOException if the client does not speak any known protocol.
+     */
+    public static MessageStreams accept(InputStream inputStream, OutputStream outputStream)
+            throws IOException {
+        var receiveFromClient = new PushbackInputStream(inputStream, 2);
+        byte[] received = new byte[magic.length];
+        new DataInputStream(receiveFromClient).readFully(received, 0, 2);
+
+        if (serializedMagic == (((received[0] & 0xFF) << 8) | (received[1] & 0xFF))) {
+            receiveFromClient.unread(received, 0, 2);
+            var output = new SerializedMessageOutput(outputStream);
+            var input = new SerializedMessageInput(receiveFromClient);
+            return new MessageStreams(input, output, MessageCodecType.Serialized);
+        }
+
+        var helloFromClient = new DataInputStream(receiveFromClient);
+        helloFromClient.readFully(received, 2, magic.length - 2);
+        if (!Arrays.equals(magic, received)) {
+            throw new IOException("Protocolo de comunicação desconhecido.");
+        }
+        int version = Math.min(helloFromClient.readUnsignedByte(), currentVersion);
+        MessageCodec.writeHello(outputStream, version);
+        if (1 > version) {
+            throw new IOException("Versão do protocolo de comunicação não suportada: " + version + ".");
+        }
+
+        var input = new BinaryMessageInput(receiveFromClient, version);
+        var output = new BinaryMessageOutput(outputStream, version);
+        return new MessageStreams(input, output, MessageCodecType.Binary);
+    }
+
+    /**
+     * Negotiates the encoding on the client side.
+     *
+     * @param inputStream      The stream of bytes received from the server.
+     * @param outputStream     The stream of bytes sent to the server.
+     * @param messageCodecType The encoding the client wants to use.
+     * @return The streams to exchange messages with the server.
+     * @throws IOException if the server does not accept the encoding.
+     */
+    public static MessageStreams connect(
+            InputStream inputStream,
+            OutputStream outputStream,
+            MessageCodecType messageCodecType
+                                        )
+            throws IOException {
+        return switch (messageCodecType) {
+            case Serialized -> {
+                var output = new SerializedMessageOutput(outputStream);
+                var input = new SerializedMessageInput(inputStream);
+                yield new MessageStreams(input, output, MessageCodecType.Serialized);
+            }
+            case Binary -> {
+                MessageCodec.writeHello(outputStream, currentVersion);
+
+                var helloFromServer = new DataInputStream(inputStream);
+                byte[] received = new byte[magic.length];
+                helloFromServer.readFully(received);
+                if (!Arrays.equals(magic, received)) {
+                    throw new IOException("Protocolo de comunicação desconhecido.");
+                }
+                int version = helloFromServer.readUnsignedByte();
+                if (1 > version || currentVersion < version) {
+                    throw new IOException("Versão do protocolo de comunicação não suportada: " + version + ".");
+                }
+
+                var input = new BinaryMessageInput(inputStream, version);
+                var output = new BinaryMessageOutput(outputStream, version);
+                yield new MessageStreams(input, output, MessageCodecType.Binary);
+            }
+        };
+    }
+
+    /**
+     * Gets the highest version of the binary protocol, which is the one messages are written with when they are stored
+     * instead of sent.
+     *
+     * @return The version.
+     */
+    public static int getCurrentVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * Gets the size of the hello a client of the binary protocol opens the connection with.
+     *
+     * @return The size in bytes.
+     */
+    public static int getHelloSize() {
+        return magic.length + 1;
+    }
+
+    /**
+     * Gets the largest frame of the binary protocol a peer may send, so its length can be checked before the frame is
+     * read.
+     *
+     * @return The size in bytes.
+     */
+    public static int getMaximumFrameSize() {
+        return maximumFrameSize;
+    }
+
+    private static void writeHello(OutputStream outputStream, int version)
+            throws IOException {
+        var hello = new DataOutputStream(outputStream);
+        hello.write(magic);
+        hello.writeByte(version);
+        hello.flush();
+    }
+
+}
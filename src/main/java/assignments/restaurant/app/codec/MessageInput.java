@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the messages exchanged between clients and server, regardless of how they are encoded.
+ */
+public interface MessageInput
+        extends Closeable {
+
+    /**
+     * Reads the next message, blocking until it arrives.
+     *
+     * @return The request or response read.
+     * @throws IOException            if the connection fails or the message is malformed.
+     * @throws ClassNotFoundException if a serialized message refers to an unknown class.
+     */
+    Object read()
+            throws IOException, ClassNotFoundException;
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes the messages exchanged between clients and server, regardless of how they are encoded.
+ */
+public interface MessageOutput
+        extends Closeable {
+
+    /**
+     * Writes a message and flushes it to the connection.
+     *
+     * @param message The request or response to write.
+     * @throws IOException if the connection fails.
+     */
+    void write(Object message)
+            throws IOException;
+
+    /**
+     * Counts the objects the output keeps referencing after they were written, which is zero unless the encoding
+     * shares objects between messages.
+     *
+     * @return The number of retained objects.
+     */
+    default int getRetainedObjects() {
+        return 0;
+    }
+
+    /**
+     * Counts the bytes written to the connection so far.
+     *
+     * @return The number of bytes written.
+     */
+    long getWrittenBytes();
+
+}
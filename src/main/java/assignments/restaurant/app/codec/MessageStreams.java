@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.codec;
+
+/**
+ * The streams agreed on by both sides of a connection.
+ *
+ * @param input            The stream the messages are read from.
+ * @param output           The stream the messages are written to.
+ * @param messageCodecType The encoding used by both streams.
+ */
+public record MessageStreams(
+        MessageInput input,
+        MessageOutput output,
+        MessageCodecType messageCodecType
+) {
+
+}
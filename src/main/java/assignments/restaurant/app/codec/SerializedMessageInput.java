@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+
+/**
+ * Reads messages encoded with Java serialization, kept for clients that do not speak the binary protocol.
+ */
+public class SerializedMessageInput
+        implements MessageInput {
+
+    private final ObjectInputStream receiveFromPeer;
+
+    public SerializedMessageInput(InputStream inputStream)
+            throws IOException {
+        this.receiveFromPeer = new ObjectInputStream(inputStream);
+    }
+
+    @Override
+    public void close()
+            throws IOException {
+        this.receiveFromPeer.close();
+    }
+
+    @Override
+    public Object read()
+            throws IOException, ClassNotFoundException {
+        return this.receiveFromPeer.readObject();
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.codec;
+
+import assignments.restaurant.Manager;
+import assignments.restaurant.app.server.Response;
+import assignments.restaurant.app.server.ResponseType;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Writes messages encoded with Java serialization, kept for clients that do not speak the binary protocol.
+ * <p>
+ * An object stream keeps a reference to every object it has written, so it can write them again as back references.
+ * On a long-lived connection that table would grow forever, and an order written again after being advanced would
+ * reach the peer with its old state. The stream is therefore reset after a number of messages, once it retains too
+ * many objects, and always before a snapshot of the orders.
+ * <p>
+ * Like the object stream it wraps, this output is not thread-safe: it is written by one thread at a time, which the
+ * owner of the connection must ensure, as the ResponseSender does with its lock. The counters are only changed by
+ * that writer, so they are plain fields, read after the write that changed them.
+ */
+public class SerializedMessageOutput
+        implements MessageOutput {
+
+    private final int                        resetInterval;
+    private final int                        retainedObjectsLimit;
+    private final CountingOutputStream       countingStream;
+    private final CountingObjectOutputStream sendToPeer;
+    private       int                        messagesSinceReset;
+    private       long                       resets;
+    private       long                       writtenMessages;
+
+    public SerializedMessageOutput(OutputStream outputStream)
+            throws IOException {
+        this(
+                outputStream,
+                Manager.getInstance().getSerializationResetInterval(),
+                Manager.getInstance().getSerializationRetainedObjectsLimit()
+            );
+    }
+
+    /**
+     * @param outputStream         The stream of the connection.
+     * @param resetInterval        How many messages are written between two resets.
+     * @param retainedObjectsLimit How many objects may be retained before the stream is reset.
+     * @throws IOException if the header of the stream could not be written.
+     */
+    public SerializedMessageOutput(OutputStream outputStream, int resetInterval, int retainedObjectsLimit)
+            throws IOException {
+        if (1 > resetInterval || 1 > retainedObjectsLimit) {
+            throw new IllegalArgumentException(
+                    "O intervalo de reinício e o limite de objetos retidos devem ser positivos.");
+        }
+        this.resetInterval = resetInterval;
+        this.retainedObjectsLimit = retainedObjectsLimit;
+        this.countingStream = new CountingOutputStream(outputStream);
+        this.sendToPeer = new CountingObjectOutputStream(this.countingStream);
+        this.sendToPeer.flush();
+    }
+
+    @Override
+    public void close()
+            throws IOException {
+        this.sendToPeer.close();
+    }
+
+    public int getMessagesSinceReset() {
+        return this.messagesSinceReset;
+    }
+
+    public long getResets() {
+        return this.resets;
+    }
+
+    @Override
+    public int getRetainedObjects() {
+        return this.sendToPeer.retainedObjects;
+    }
+
+    @Override
+    public long getWrittenBytes() {
+        return this.countingStream.getWrittenBytes();
+    }
+
+    public long getWrittenMessages() {
+        return this.writtenMessages;
+    }
+
+    private void reset()
+            throws IOException {
+        this.sendToPeer.reset();
+        this.sendToPeer.retainedObjects = 0;
+        this.messagesSinceReset = 0;
+        this.resets++;
+    }
+
+    private boolean shouldReset(Object message) {
+        if (0 == this.messagesSinceReset) {
+            return false;
+        }
+        // Orders already sent would otherwise be written as back references to their first serialized form
+        if (message instanceof Response response && ResponseType.SendOrders == response.getResponseType()) {
+            return true;
+        }
+        return this.resetInterval <= this.messagesSinceReset
+                || this.retainedObjectsLimit <= this.sendToPeer.retainedObjects;
+    }
+
+    @Override
+    public void write(Object message)
+            throws IOException {
+        if (this.shouldReset(message)) {
+            this.reset();
+        }
+        this.sendToPeer.writeObject(message);
+        this.sendToPeer.flush();
+        this.messagesSinceReset++;
+        this.writtenMessages++;
+    }
+
+    /**
+     * An object stream that counts the objects it has written since the last reset, which are the ones held by its
+     * table of back references.
+     */
+    private static class CountingObjectOutputStream
+            extends ObjectOutputStream {
+
+        private int retainedObjects;
+
+        private CountingObjectOutputStream(OutputStream outputStream)
+                throws IOException {
+            super(outputStream);
+            this.enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object object) {
+            // Only called for objects not written before, since back references are written without replacement
+            this.retainedObjects++;
+            return object;
+        }
+
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values, such as latencies in nanoseconds.
+ * <p>
+ * Like an HDR histogram, values are counted in buckets whose width grows with their magnitude: values below 32 have a
+ * bucket each, and every power of two above that is split into 16 buckets. Recording a value is then a single atomic
+ * increment, the memory used is fixed, and every percentile is reported within about 6% of the recorded value.
+ */
+public class Histogram {
+
+    private static final int             linearBuckets   = 32;
+    private static final int             subBuckets      = 16;
+    private static final int             subBucketBits   = 4;
+    private static final int             numberOfBuckets = linearBuckets + (63 - subBucketBits) * subBuckets;
+    private final        AtomicLongArray buckets         = new AtomicLongArray(numberOfBuckets);
+    private final        LongAdder       count           = new LongAdder();
+    private final        LongAccumulator maximum         = new LongAccumulator(Math::max, 0);
+    private final        LongAdder       sum             = new LongAdder();
+
+    private static int bucketOf(long value) {
+        if (linearBuckets > value) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        int subBucket = (int) (value >>> shift) - subBuckets;
+        return linearBuckets + (shift - 1) * subBuckets + subBucket;
+    }
+
+    private static long highestValueOf(int bucket) {
+        if (linearBuckets > bucket) {
+            return bucket;
+        }
+        int shift = (bucket - linearBuckets) / subBuckets + 1;
+        long subBucket = (bucket - linearBuckets) % subBuckets + subBuckets;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    public long getMaximum() {
+        return this.maximum.get();
+    }
+
+    public double getMean() {
+        long count = this.count.sum();
+        return 0 == count ? 0 : (double) this.sum.sum() / count;
+    }
+
+    /**
+     * Gets the value below which the given fraction of the recorded values falls.
+     *
+     * @param fraction The fraction of the values, from 0 to 1.
+     * @return The highest value of the bucket holding the percentile, or zero if nothing was recorded.
+     */
+    public long getPercentile(double fraction) {
+        long count = this.count.sum();
+        if (0 == count) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (
+                int i = 0;
+                i < numberOfBuckets;
+                i++
+        ) {
+            seen += this.buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(Histogram.highestValueOf(i), this.getMaximum());
+            }
+        }
+        return this.getMaximum();
+    }
+
+    /**
+     * Records a value, where negative values count as zero.
+     *
+     * @param value The value to record.
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        this.buckets.incrementAndGet(Histogram.bucketOf(value));
+        this.count.increment();
+        this.sum.add(value);
+        this.maximum.accumulate(value);
+    }
+
+}
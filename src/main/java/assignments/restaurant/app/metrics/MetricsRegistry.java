@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.metrics;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the metrics of the server by name, creating each one the first time it is asked for.
+ * <p>
+ * Counters and histograms are updated by the code being measured, while gauges are read from their supplier only when
+ * the metrics are printed.
+ */
+public class MetricsRegistry {
+
+    private final ConcurrentHashMap<String, Counter>      counters   = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongSupplier> gauges     = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Histogram>    histograms = new ConcurrentHashMap<>();
+
+    public Counter counter(String name) {
+        return this.counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public void gauge(String name, LongSupplier supplier) {
+        this.gauges.put(name, supplier);
+    }
+
+    public Histogram histogram(String name) {
+        return this.histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Prints every metric as a line of text, sorted by name within each kind of metric.
+     *
+     * @param printStream The stream to print to.
+     */
+    public void print(PrintStream printStream) {
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(this.counters).entrySet()) {
+            printStream.println("counter " + entry.getKey() + " " + entry.getValue().get());
+        }
+        for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(this.gauges).entrySet()) {
+            printStream.println("gauge " + entry.getKey() + " " + entry.getValue().getAsLong());
+        }
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(this.histograms).entrySet()) {
+            var histogram = entry.getValue();
+            printStream.printf(
+                    "histogram %s count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d%n",
+                    entry.getKey(),
+                    histogram.getCount(),
+                    histogram.getMean(),
+                    histogram.getPercentile(0.5),
+                    histogram.getPercentile(0.9),
+                    histogram.getPercentile(0.99),
+                    histogram.getMaximum()
+                              );
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.metrics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dumps the metrics of a registry to a file every few seconds.
+ * The metrics are written to a temporary file first and then moved over the dump, so a reader never sees it half
+ * written.
+ */
+public class MetricsReporter
+        implements AutoCloseable {
+
+    private final Path                     dumpPath;
+    private final MetricsRegistry          metricsRegistry;
+    private final ScheduledExecutorService scheduler;
+
+    public MetricsReporter(MetricsRegistry metricsRegistry, Path dumpPath) {
+        this.metricsRegistry = metricsRegistry;
+        this.dumpPath = dumpPath;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                                                                          .name("metrics-reporter")
+                                                                          .daemon(true)
+                                                                          .factory());
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+
+    /**
+     * Writes the metrics to the dump file once.
+     *
+     * @throws IOException if the file could not be written.
+     */
+    public void dump()
+            throws IOException {
+        var absolutePath = this.dumpPath.toAbsolutePath();
+        var temporaryPath = absolutePath.resolveSibling(absolutePath.getFileName() + ".tmp");
+        try (var printStream = new PrintStream(Files.newOutputStream(temporaryPath))) {
+            this.metricsRegistry.print(printStream);
+        }
+        Files.move(temporaryPath, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Starts dumping the metrics periodically.
+     *
+     * @param intervalInSeconds The interval between two dumps.
+     */
+    public void start(long intervalInSeconds) {
+        this.scheduler.scheduleAtFixedRate(
+                () -> {
+                    try {
+                        this.dump();
+                    }
+                    catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                },
+                intervalInSeconds,
+                intervalInSeconds,
+                TimeUnit.SECONDS
+                                          );
+    }
+
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.server;
+
+import assignments.restaurant.Manager;
+import assignments.restaurant.app.codec.MessageCodec;
+import assignments.restaurant.app.codec.MessageCodecType;
+import assignments.restaurant.app.codec.MessageInput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectStreamConstants;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A client connection served by the selector mode of the server.
+ * The event loop owns every socket operation, while requests are decoded and handled on a worker, one at a time per
+ * connection, so the order of the requests of a client is preserved.
+ * <p>
+ * A request of the binary protocol is only handed to a worker once its whole frame was received, so a client that
+ * sends part of a message never holds a worker. Serialized messages cannot be told apart before they are read, so the
+ * requests of clients that use Java serialization are read on a virtual thread instead, which may wait for the rest of
+ * a message.
+ * <p>
+ * The bytes waiting to be written are bounded. Once a client lets them pile up, its requests are no longer read, and
+ * the writer of its updates waits, so the queue of its response sender fills up and the overflow policy handles it.
+ */
+class ChannelConnection
+        implements Closeable {
+
+    private final    SocketChannel      channel;
+    private final    AtomicBoolean      closed                 = new AtomicBoolean(false);
+    private final    AtomicBoolean      decoding               = new AtomicBoolean(false);
+    private final    EventLoop          eventLoop;
+    private final    ChannelInputStream inbound                = new ChannelInputStream();
+    private final    long               maximumOfOutboundBytes = Manager.getInstance().getMaximumOfOutboundBytes();
+    private final    Queue<ByteBuffer>  outbound               = new ConcurrentLinkedQueue<>();
+    private final    ReentrantLock      outboundLock           = new ReentrantLock();
+    private final    Condition          outboundDrained        = this.outboundLock.newCondition();
+    private final    ServerContext      serverContext;
+    private final    PrintStream        serverPrintStream;
+    private final    Executor           workers;
+    private volatile boolean            closing                = false;
+    private          SelectionKey       key;
+    private          long               outboundBytes          = 0;
+    private volatile MessageCodecType   messageCodecType;
+    private volatile MessageInput       receiveFromClient;
+    private          RequestHandler     requestHandler;
+    private volatile ResponseSender     responseSender;
+
+    protected ChannelConnection(
+            SocketChannel channel,
+            EventLoop eventLoop,
+            Executor workers,
+            ServerContext serverContext,
+            PrintStream serverPrintStream
+                               ) {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.workers = workers;
+        this.serverContext = serverContext;
+        this.serverPrintStream = serverPrintStream;
+    }
+
+    /**
+     * Waits until the bytes waiting to be written are under the bound, or the connection is closed.
+     * Called by the writer of the updates of the client before each one, instead of blocking on the socket.
+     */
+    protected void awaitOutboundCapacity() {
+        this.outboundLock.lock();
+        try {
+            while (!this.closed.get() && this.maximumOfOutboundBytes <= this.outboundBytes) {
+                this.outboundDrained.awaitUninterruptibly();
+            }
+        }
+        finally {
+            this.outboundLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+        this.outboundLock.lock();
+        try {
+            this.outboundDrained.signalAll();
+        }
+        finally {
+            this.outboundLock.unlock();
+        }
+        if (null != this.responseSender) {
+            this.serverContext.deleteObserver(this.responseSender);
+        }
+        this.inbound.close();
+        if (null != this.key) {
+            this.key.cancel();
+        }
+        try {
+            this.channel.close();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+        this.serverPrintStream.println("Um cliente se desconectou.");
+    }
+
+    /**
+     * Closes the connection once the event loop has written every queued response, such as the confirmation of the
+     * request that finished the connection.
+     */
+    private void closeWhenFlushed() {
+        this.closing = true;
+        this.eventLoop.execute(() -> {
+            if (this.outbound.isEmpty()) {
+                this.close();
+            }
+            else {
+                this.enableWrite();
+            }
+        });
+    }
+
+    /**
+     * Queues bytes to be written by the event loop.
+     * Called by whichever thread produced the response.
+     *
+     * @param buffer The bytes to write.
+     */
+    protected void enqueue(ByteBuffer buffer) {
+        if (this.closed.get()) {
+            return;
+        }
+        this.outboundLock.lock();
+        try {
+            this.outbound.add(buffer);
+            this.outboundBytes += buffer.remaining();
+        }
+        finally {
+            this.outboundLock.unlock();
+        }
+        this.eventLoop.execute(this::enableWrite);
+    }
+
+    private void enableWrite() {
+        if (null != this.key && this.key.isValid()) {
+            // A client that does not read its responses is not read either until they are written
+            int interestOps = this.isOutboundFull() ? 0 : SelectionKey.OP_READ;
+            this.key.interestOps(interestOps | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private boolean isOutboundFull() {
+        this.outboundLock.lock();
+        try {
+            return this.maximumOfOutboundBytes <= this.outboundBytes;
+        }
+        finally {
+            this.outboundLock.unlock();
+        }
+    }
+
+    protected SocketChannel getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Called by the event loop when the channel is readable.
+     *
+     * @param readBuffer The buffer owned by the event loop, reused across reads.
+     */
+    protected void onReadable(ByteBuffer readBuffer) {
+        try {
+            int read;
+            while (0 < (read = this.channel.read(readBuffer.clear()))) {
+                this.inbound.append(readBuffer.flip());
+            }
+            if (0 > read) {
+                this.close();
+                return;
+            }
+            this.scheduleDecoding();
+        }
+        catch (IOException e) {
+            this.close();
+        }
+    }
+
+    private void scheduleDecoding() {
+        if (this.isDecodable() && this.decoding.compareAndSet(false, true)) {
+            if (MessageCodecType.Serialized == this.messageCodecType) {
+                Thread.startVirtualThread(this::decode);
+            }
+            else {
+                this.workers.execute(this::decode);
+            }
+        }
+    }
+
+    /**
+     * Tells whether the buffered bytes can be decoded without waiting for more of them.
+     * Called by the event loop, to hand only whole messages to a worker, and by the worker, to stop once they are done.
+     *
+     * @return Whether there is a message, or the hello that starts the connection, to decode.
+     */
+    private boolean isDecodable() {
+        if (null == this.messageCodecType) {
+            if (2 > this.inbound.available()) {
+                return false;
+            }
+            int streamMagic = (this.inbound.peek(0) << 8) | this.inbound.peek(1);
+            this.messageCodecType = (ObjectStreamConstants.STREAM_MAGIC & 0xFFFF) == streamMagic
+                                    ? MessageCodecType.Serialized
+                                    : MessageCodecType.Binary;
+        }
+        return switch (this.messageCodecType) {
+            case Serialized -> 0 < this.inbound.available();
+            case Binary -> null == this.receiveFromClient
+                           ? MessageCodec.getHelloSize() <= this.inbound.available()
+                           : this.inbound.hasFrame(MessageCodec.getMaximumFrameSize());
+        };
+    }
+
+    private void decode() {
+        try {
+            do {
+                while (this.isDecodable()) {
+                    if (null == this.receiveFromClient) {
+                        this.negotiate();
+                        continue;
+                    }
+                    Object receivedObject = this.receiveFromClient.read();
+                    if (!this.requestHandler.handle(receivedObject)) {
+                        this.closeWhenFlushed();
+                        return;
+                    }
+                }
+                this.decoding.set(false);
+            } while (this.isDecodable() && this.decoding.compareAndSet(false, true));
+        }
+        catch (Exception e) {
+            if (!this.closed.get()) {
+                e.printStackTrace();
+            }
+            this.close();
+        }
+    }
+
+    private void negotiate()
+            throws IOException {
+        var messageStreams = MessageCodec.accept(this.inbound, new ChannelOutputStream(this));
+        this.receiveFromClient = messageStreams.input();
+        this.responseSender = new ResponseSender(
+                messageStreams.output(),
+                this,
+                this.serverContext,
+                this.serverPrintStream
+        );
+        this.requestHandler = new RequestHandler(this.responseSender, this.serverContext, this.serverPrintStream);
+        // The connection may have been closed before the sender started observing the context
+        if (this.closed.get()) {
+            this.serverContext.deleteObserver(this.responseSender);
+        }
+    }
+
+    /**
+     * Called by the event loop when the channel is writable.
+     * Writes as much of the queue as the socket accepts and stops waiting for writability once it is empty.
+     */
+    protected void onWritable() {
+        try {
+            ByteBuffer buffer;
+            while (null != (buffer = this.outbound.peek())) {
+                this.channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                this.outbound.poll();
+                this.outboundLock.lock();
+                try {
+                    this.outboundBytes -= buffer.limit();
+                    this.outboundDrained.signalAll();
+                }
+                finally {
+                    this.outboundLock.unlock();
+                }
+            }
+            if (this.closing) {
+                this.close();
+                return;
+            }
+            this.key.interestOps(SelectionKey.OP_READ);
+            if (!this.outbound.isEmpty()) {
+                this.enableWrite();
+            }
+        }
+        catch (IOException e) {
+            this.close();
+        }
+    }
+
+    protected void setKey(SelectionKey key) {
+        this.key = key;
+        if (!this.outbound.isEmpty()) {
+            this.enableWrite();
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.server;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Input stream fed by an event loop with the bytes read from a non-blocking channel.
+ * Readers block only while a message is partially received, so the event loop can look at the buffered bytes to only
+ * hand whole messages to the readers.
+ * <p>
+ * A ReentrantLock is used instead of synchronized methods, since the readers may be virtual threads, which would pin
+ * their carriers while waiting on a monitor.
+ */
+class ChannelInputStream
+        extends InputStream {
+
+    private final ReentrantLock lock     = new ReentrantLock();
+    private final Condition     appended = this.lock.newCondition();
+    private       byte[]        buffer   = new byte[8192];
+    private       boolean       closed   = false;
+    private       int           end      = 0;
+    private       int           start    = 0;
+
+    /**
+     * Appends the remaining bytes of the given buffer and wakes up any blocked reader.
+     *
+     * @param source The buffer filled by the event loop.
+     */
+    protected void append(ByteBuffer source) {
+        this.lock.lock();
+        try {
+            int length = source.remaining();
+            if (this.buffer.length - this.end < length) {
+                int buffered = this.end - this.start;
+                if (this.buffer.length < buffered + length) {
+                    byte[] grown = new byte[Math.max(this.buffer.length * 2, buffered + length)];
+                    System.arraycopy(this.buffer, this.start, grown, 0, buffered);
+                    this.buffer = grown;
+                }
+                else {
+                    System.arraycopy(this.buffer, this.start, this.buffer, 0, buffered);
+                }
+                this.start = 0;
+                this.end = buffered;
+            }
+            source.get(this.buffer, this.end, length);
+            this.end += length;
+            this.appended.signalAll();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Tells whether the buffered bytes start with a whole frame of the binary protocol, made of its length followed by
+     * its payload.
+     *
+     * @param maximumFrameSize The largest frame a peer may send.
+     * @return Whether a reader can read the frame without blocking.
+     */
+    protected boolean hasFrame(int maximumFrameSize) {
+        this.lock.lock();
+        try {
+            int available = this.end - this.start;
+            if (Integer.BYTES > available) {
+                return false;
+            }
+            int length = ByteBuffer.wrap(this.buffer, this.start, Integer.BYTES).getInt();
+            // A length that cannot be valid is not waited for, so the reader rejects it at once
+            return 0 > length || maximumFrameSize < length || Integer.BYTES + length <= available;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Gets a buffered byte without reading it.
+     *
+     * @param index The position of the byte among the buffered ones.
+     * @return The byte, or -1 if it was not received yet.
+     */
+    protected int peek(int index) {
+        this.lock.lock();
+        try {
+            if (this.end - this.start <= index) {
+                return -1;
+            }
+            return this.buffer[this.start + index] & 0xFF;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public int available() {
+        this.lock.lock();
+        try {
+            return this.end - this.start;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.appended.signalAll();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public int read() {
+        this.lock.lock();
+        try {
+            if (!this.awaitBytes()) {
+                return -1;
+            }
+            return this.buffer[this.start++] & 0xFF;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public int read(byte[] destination, int offset, int length) {
+        if (0 == length) {
+            return 0;
+        }
+        this.lock.lock();
+        try {
+            if (!this.awaitBytes()) {
+                return -1;
+            }
+            int count = Math.min(length, this.end - this.start);
+            System.arraycopy(this.buffer, this.start, destination, offset, count);
+            this.start += count;
+            return count;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    private boolean awaitBytes() {
+        while (this.start == this.end && !this.closed) {
+            try {
+                this.appended.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return this.start != this.end;
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Output stream that hands the written bytes to the event loop of a connection on every flush.
+ * Writing never blocks on the network, so a slow client cannot hold the thread that produced the response.
+ */
+class ChannelOutputStream
+        extends OutputStream {
+
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final ChannelConnection     connection;
+
+    protected ChannelOutputStream(ChannelConnection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public void flush() {
+        if (0 == this.pending.size()) {
+            return;
+        }
+        this.connection.enqueue(ByteBuffer.wrap(this.pending.toByteArray()));
+        this.pending.reset();
+    }
+
+    @Override
+    public void write(int b) {
+        this.pending.write(b);
+    }
+
+    @Override
+    public void write(byte[] source, int offset, int length) {
+        this.pending.write(source, offset, length);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Multiplexes many client connections over a single thread with a selector.
+ * Other threads never touch the selector directly: they submit tasks through execute(), which run between selections.
+ */
+class EventLoop
+        implements Runnable, Closeable, Executor {
+
+    private final ByteBuffer      readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final Selector        selector;
+    private final Queue<Runnable> tasks      = new ConcurrentLinkedQueue<>();
+
+    protected EventLoop()
+            throws IOException {
+        this.selector = Selector.open();
+    }
+
+    @Override
+    public void close()
+            throws IOException {
+        this.selector.close();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.tasks.add(task);
+        this.selector.wakeup();
+    }
+
+    protected void register(ChannelConnection connection) {
+        this.execute(() -> {
+            try {
+                var key = connection.getChannel().register(this.selector, SelectionKey.OP_READ, connection);
+                connection.setKey(key);
+            }
+            catch (IOException e) {
+                connection.close();
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (this.selector.isOpen() && !Thread.currentThread().isInterrupted()) {
+                this.selector.select();
+                this.runTasks();
+                var selectedKeys = this.selector.selectedKeys();
+                for (var key : selectedKeys) {
+                    this.process(key);
+                }
+                selectedKeys.clear();
+            }
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+        finally {
+            if (this.selector.isOpen()) {
+                for (var key : this.selector.keys()) {
+                    ((ChannelConnection) key.attachment()).close();
+                }
+            }
+            try {
+                this.close();
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while (null != (task = this.tasks.poll())) {
+            task.run();
+        }
+    }
+
+    private void process(SelectionKey key) {
+        var connection = (ChannelConnection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.onReadable(this.readBuffer);
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.onWritable();
+            }
+        }
+        catch (CancelledKeyException e) {
+            connection.close();
+        }
+    }
+
+}
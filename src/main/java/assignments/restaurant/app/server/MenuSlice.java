@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.server;
+
+import assignments.restaurant.data.RestrictByCategory;
+import assignments.restaurant.data.RestrictByCuisine;
+import assignments.restaurant.data.RestrictByDecorator;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * The part of the menu a client asks the server for, where a null restriction matches every menu component.
+ *
+ * @param restrictByCuisine   The cuisine of the menu components.
+ * @param restrictByCategory  The category of the menu components.
+ * @param restrictByDecorator Whether the menu components are decorators.
+ */
+public record MenuSlice(
+        RestrictByCuisine restrictByCuisine, RestrictByCategory restrictByCategory,
+        RestrictByDecorator restrictByDecorator
+) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+}
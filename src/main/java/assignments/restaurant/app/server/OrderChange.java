@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.server;
+
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.state.StateType;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Describes a single change on the orders kept by the server.
+ * Only added orders carry the whole order; advanced orders carry just their new state, and removed orders carry
+ * nothing but their id.
+ *
+ * @param version         The version of the server context after the change, increased by one on every change.
+ * @param orderChangeType The kind of change.
+ * @param orderId         The id of the changed order.
+ * @param order           The added order, or null for the other kinds of change.
+ * @param stateType       The state the order reached, or null for removed orders.
+ */
+public record OrderChange(
+        long version,
+        OrderChangeType orderChangeType,
+        int orderId,
+        Order order,
+        StateType stateType
+)
+        implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static OrderChange added(long version, int orderId, Order order) {
+        return new OrderChange(version, OrderChangeType.Added, orderId, order, order.getStateType());
+    }
+
+    public static OrderChange advanced(long version, int orderId, StateType stateType) {
+        return new OrderChange(version, OrderChangeType.Advanced, orderId, null, stateType);
+    }
+
+    public static OrderChange removed(long version, int orderId) {
+        return new OrderChange(version, OrderChangeType.Removed, orderId, null, null);
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.server;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evicts the finished orders of a server context every few seconds, following its retention policy.
+ */
+public class OrderSweeper
+        implements AutoCloseable {
+
+    private final ScheduledExecutorService scheduler;
+    private final ServerContext            serverContext;
+
+    public OrderSweeper(ServerContext serverContext) {
+        this.serverContext = serverContext;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                                                                          .name("order-sweeper")
+                                                                          .daemon(true)
+                                                                          .factory());
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdown();
+    }
+
+    /**
+     * Starts evicting the finished orders periodically.
+     *
+     * @param intervalInSeconds The interval between two sweeps.
+     */
+    public void start(long intervalInSeconds) {
+        this.scheduler.scheduleWithFixedDelay(
+                () -> {
+                    try {
+                        this.serverContext.sweep();
+                    }
+                    catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                },
+                intervalInSeconds,
+                intervalInSeconds,
+                TimeUnit.SECONDS
+                                             );
+    }
+
+}
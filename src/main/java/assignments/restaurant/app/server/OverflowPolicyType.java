@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.server;
+
+/**
+ * What to do with a client whose outbound queue is full, because it does not read the updates as fast as they are
+ * published.
+ */
+public enum OverflowPolicyType {
+    /**
+     * Drops the pending updates and sends a snapshot of the orders in their place.
+     */
+    DropAndResync,
+    /**
+     * Disconnects the client.
+     */
+    Disconnect
+}
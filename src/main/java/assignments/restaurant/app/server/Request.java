@@ -3,49 +3,124 @@
  *
  * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
  */
-
 package assignments.restaurant.app.server;
 
 import assignments.restaurant.order.Order;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * A request sent by a client to the server.
+ * Every request gets a correlation id, which the server copies into the responses that answer it, so a client can
+ * keep many requests in flight and match the answers in any order.
+ */
 public class Request
         implements Serializable {
 
     @Serial
-    private static final long        serialVersionUID = 1L;
-    private final        Order       order;
-    private final        int         orderId;
-    private final        RequestType requestType;
+    private static final long          serialVersionUID   = 4L;
+    private static final AtomicInteger correlationCounter = new AtomicInteger(0);
+    private final        int           correlationId;
+    private final        MenuSlice     menuSlice;
+    private final        long          menuVersion;
+    private final        Order         order;
+    private final        int           orderId;
+    private final        List<Integer> orderIds;
+    private final        List<Order>   orders;
+    private final        RequestType   requestType;
+
+    private Request(
+            RequestType requestType,
+            Order order,
+            int orderId,
+            List<Order> orders,
+            List<Integer> orderIds,
+            MenuSlice menuSlice,
+            long menuVersion,
+            int correlationId
+    ) {
+        this.requestType = requestType;
+        this.order = order;
+        this.orderId = orderId;
+        this.orders = orders;
+        this.orderIds = orderIds;
+        this.menuSlice = menuSlice;
+        this.menuVersion = menuVersion;
+        this.correlationId = correlationId;
+    }
 
     private Request(RequestType requestType) {
-        this.requestType = requestType;
-        this.order = null;
-        this.orderId = 0;
+        this(requestType, null, 0, null, null, null, 0, Request.nextCorrelationId());
     }
 
     private Request(RequestType requestType, Order order) {
-        this.requestType = requestType;
-        this.order = order;
-        this.orderId = 0;
+        this(requestType, order, 0, null, null, null, 0, Request.nextCorrelationId());
     }
 
     private Request(RequestType requestType, int orderId) {
-        this.requestType = requestType;
-        this.order = null;
-        this.orderId = orderId;
+        this(requestType, null, orderId, null, null, null, 0, Request.nextCorrelationId());
     }
 
     public static Request advanceOrder(int orderId) {
         return new Request(RequestType.AdvanceOrder, orderId);
     }
 
+    /**
+     * Creates a request that advances many orders at once, which the server applies as a single change.
+     *
+     * @param orderIds The ids of the orders to advance.
+     * @return The request.
+     */
+    public static Request advanceOrderBatch(List<Integer> orderIds) {
+        return new Request(
+                RequestType.AdvanceOrderBatch,
+                null,
+                0,
+                null,
+                List.copyOf(orderIds),
+                null,
+                0,
+                Request.nextCorrelationId()
+        );
+    }
+
     public static Request finishConnection() {
         return new Request(RequestType.FinishConnection);
     }
 
+    private static int nextCorrelationId() {
+        // Zero is left for responses that do not answer any request
+        int correlationId;
+        do {
+            correlationId = Request.correlationCounter.incrementAndGet();
+        } while (0 == correlationId);
+        return correlationId;
+    }
+
+    /**
+     * Creates a request for a part of the menu, which the server only sends if it changed since the version the client
+     * already has.
+     *
+     * @param menuSlice   The part of the menu to retrieve.
+     * @param menuVersion The version of the menu the client has cached, or zero if it has none.
+     * @return The request.
+     */
+    public static Request retrieveMenu(MenuSlice menuSlice, long menuVersion) {
+        return new Request(
+                RequestType.RetrieveMenu,
+                null,
+                0,
+                null,
+                null,
+                menuSlice,
+                menuVersion,
+                Request.nextCorrelationId()
+        );
+    }
+
     public static Request retrieveOrders() {
         return new Request(RequestType.RetrieveOrders);
     }
@@ -54,6 +129,42 @@ public class Request
         return new Request(RequestType.SendOrder, order);
     }
 
+    /**
+     * Creates a request that sends many orders at once, which the server applies as a single change.
+     *
+     * @param orders The orders to send.
+     * @return The request.
+     */
+    public static Request sendOrderBatch(List<Order> orders) {
+        return new Request(
+                RequestType.SendOrderBatch,
+                null,
+                0,
+                List.copyOf(orders),
+                null,
+                null,
+                0,
+                Request.nextCorrelationId()
+        );
+    }
+
+    public int getCorrelationId() {
+        return this.correlationId;
+    }
+
+    public MenuSlice getMenuSlice() {
+        return this.menuSlice;
+    }
+
+    /**
+     * Gets the version of the menu the client already has.
+     *
+     * @return The version, or zero if the client has no menu cached.
+     */
+    public long getMenuVersion() {
+        return this.menuVersion;
+    }
+
     public Order getOrder() {
         return this.order;
     }
@@ -62,8 +173,35 @@ public class Request
         return this.orderId;
     }
 
+    public List<Integer> getOrderIds() {
+        return this.orderIds;
+    }
+
+    public List<Order> getOrders() {
+        return this.orders;
+    }
+
     public RequestType getRequestType() {
         return this.requestType;
     }
 
+    /**
+     * Creates a copy of this request with the given correlation id, used when the request is decoded on the server.
+     *
+     * @param correlationId The correlation id chosen by the client.
+     * @return The copy of the request.
+     */
+    public Request withCorrelationId(int correlationId) {
+        return new Request(
+                this.requestType,
+                this.order,
+                this.orderId,
+                this.orders,
+                this.orderIds,
+                this.menuSlice,
+                this.menuVersion,
+                correlationId
+        );
+    }
+
 }
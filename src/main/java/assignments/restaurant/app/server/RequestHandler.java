@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.server;
+
+import assignments.restaurant.data.Data;
+
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Applies the requests received from a single client to the server context.
+ * It is shared by every server mode, so the request semantics do not depend on how the connection is served.
+ */
+public class RequestHandler {
+
+    private final ResponseSender responseSender;
+    private final ServerContext  serverContext;
+    private final PrintStream    serverPrintStream;
+
+    public RequestHandler(ResponseSender responseSender, ServerContext serverContext, PrintStream serverPrintStream) {
+        this.responseSender = responseSender;
+        this.serverContext = serverContext;
+        this.serverPrintStream = serverPrintStream;
+    }
+
+    /**
+     * Handles an object received from the client.
+     *
+     * @param receivedObject The object read from the connection.
+     * @return Whether the connection should keep being served.
+     * @throws IOException if the response could not be sent.
+     */
+    public boolean handle(Object receivedObject)
+            throws IOException {
+        if (receivedObject instanceof Request request) {
+            long start = System.nanoTime();
+            try {
+                return this.handleRequest(request);
+            }
+            finally {
+                var metricsRegistry = this.serverContext.getMetricsRegistry();
+                metricsRegistry.counter("requests." + request.getRequestType()).increment();
+                metricsRegistry.histogram("requests." + request.getRequestType() + ".nanoseconds")
+                               .record(System.nanoTime() - start);
+            }
+        }
+        this.serverPrintStream.println("Objeto desconhecido recebido: " + receivedObject);
+        return false;
+    }
+
+    private boolean handleRequest(Request request)
+            throws IOException {
+        switch (request.getRequestType()) {
+            case RetrieveOrders -> {
+                this.serverContext.sendOrders(this.responseSender, request.getCorrelationId());
+            }
+            case SendOrder -> {
+                var order = request.getOrder();
+                this.serverPrintStream.println("Pedido recebido: " + order);
+                this.serverContext.addOrder(order);
+                this.responseSender.confirmReceivedOrder(request.getCorrelationId());
+            }
+            case AdvanceOrder -> {
+                var orderId = request.getOrderId();
+                this.serverPrintStream.println("Pedido progredido: " + orderId);
+                this.serverContext.advanceOrder(orderId);
+                this.responseSender.confirmAdvancedOrder(request.getCorrelationId());
+            }
+            case SendOrderBatch -> {
+                var orders = request.getOrders();
+                this.serverPrintStream.println("Lote de pedidos recebido: " + orders.size() + " pedidos");
+                this.serverContext.addOrders(orders);
+                this.responseSender.confirmReceivedOrder(request.getCorrelationId());
+            }
+            case AdvanceOrderBatch -> {
+                var orderIds = request.getOrderIds();
+                this.serverPrintStream.println("Lote de pedidos progredido: " + orderIds);
+                this.serverContext.advanceOrders(orderIds);
+                this.responseSender.confirmAdvancedOrder(request.getCorrelationId());
+            }
+            case RetrieveMenu -> this.responseSender.sendMenu(Data.getInstance().getCatalog(), request);
+            case FinishConnection -> {
+                this.responseSender.confirmFinishedConnection(request.getCorrelationId());
+                return false;
+            }
+            default -> {
+                this.serverPrintStream.println("Requisição desconhecida recebida: " + request);
+            }
+        }
+        return true;
+    }
+
+}
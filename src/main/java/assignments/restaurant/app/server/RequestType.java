@@ -10,5 +10,8 @@ public enum RequestType {
     RetrieveOrders,
     SendOrder,
     AdvanceOrder,
-    FinishConnection
+    FinishConnection,
+    SendOrderBatch,
+    AdvanceOrderBatch,
+    RetrieveMenu
 }
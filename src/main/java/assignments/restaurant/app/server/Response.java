@@ -3,47 +3,165 @@
  *
  * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
  */
-
 package assignments.restaurant.app.server;
 
+import assignments.restaurant.data.MenuComponentRecord;
 import assignments.restaurant.order.Order;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class Response
         implements Serializable {
 
     @Serial
-    private static final long                              serialVersionUID = 1L;
+    private static final long                              serialVersionUID = 5L;
+    private final        int                               correlationId;
+    private final        List<MenuComponentRecord>         menuComponents;
+    private final        long                              menuVersion;
+    private final        List<OrderChange>                 orderChanges;
     private final        ConcurrentHashMap<Integer, Order> orders;
     private final        ResponseType                      responseType;
+    private final        long                              version;
 
-    private Response(ResponseType responseType, ConcurrentHashMap<Integer, Order> orders) {
+    private Response(
+            ResponseType responseType,
+            ConcurrentHashMap<Integer, Order> orders,
+            List<OrderChange> orderChanges,
+            long version,
+            List<MenuComponentRecord> menuComponents,
+            long menuVersion,
+            int correlationId
+                    ) {
         this.responseType = responseType;
+        this.menuComponents = menuComponents;
         this.orders = orders;
+        this.orderChanges = orderChanges;
+        this.version = version;
+        this.menuVersion = menuVersion;
+        this.correlationId = correlationId;
     }
 
-    private Response(ResponseType responseType) {
-        this.responseType = responseType;
-        this.orders = new ConcurrentHashMap<>();
+    private Response(ResponseType responseType, int correlationId) {
+        this(responseType, new ConcurrentHashMap<>(), List.of(), 0, List.of(), 0, correlationId);
+    }
+
+    public static Response confirmAdvancedOrder(int correlationId) {
+        return new Response(ResponseType.ConfirmAdvancedOrder, correlationId);
+    }
+
+    public static Response confirmFinishedConnection(int correlationId) {
+        return new Response(ResponseType.confirmFinishedConnection, correlationId);
+    }
+
+    public static Response confirmReceivedOrder(int correlationId) {
+        return new Response(ResponseType.ConfirmReceivedOrder, correlationId);
+    }
+
+    /**
+     * Tells a client that the menu changed, so it can drop the menu it has cached instead of polling for it.
+     *
+     * @param menuVersion The version of the new menu.
+     * @return The notification, which answers no request.
+     */
+    public static Response menuChanged(long menuVersion) {
+        return new Response(
+                ResponseType.MenuChanged,
+                new ConcurrentHashMap<>(),
+                List.of(),
+                0,
+                List.of(),
+                menuVersion,
+                0
+        );
+    }
+
+    /**
+     * Tells a client that the part of the menu it asked for did not change since the version it has cached.
+     *
+     * @param menuVersion   The version of the current menu.
+     * @param correlationId The correlation id of the request that asked for the menu.
+     * @return The response.
+     */
+    public static Response menuNotModified(long menuVersion, int correlationId) {
+        return new Response(
+                ResponseType.MenuNotModified,
+                new ConcurrentHashMap<>(),
+                List.of(),
+                0,
+                List.of(),
+                menuVersion,
+                correlationId
+        );
+    }
+
+    /**
+     * Sends a part of the menu to a client.
+     *
+     * @param menuComponents The menu components of the part asked for.
+     * @param menuVersion    The version of the menu they were taken from.
+     * @param correlationId  The correlation id of the request that asked for the menu.
+     * @return The response.
+     */
+    public static Response sendMenu(List<MenuComponentRecord> menuComponents, long menuVersion, int correlationId) {
+        return new Response(
+                ResponseType.SendMenu,
+                new ConcurrentHashMap<>(),
+                List.of(),
+                0,
+                List.copyOf(menuComponents),
+                menuVersion,
+                correlationId
+        );
     }
 
-    public static Response confirmAdvancedOrder() {
-        return new Response(ResponseType.ConfirmAdvancedOrder);
+    public static Response sendOrderChanges(List<OrderChange> orderChanges) {
+        var version = orderChanges.isEmpty() ? 0 : orderChanges.getLast().version();
+        return new Response(
+                ResponseType.SendOrderChanges,
+                new ConcurrentHashMap<>(),
+                List.copyOf(orderChanges),
+                version,
+                List.of(),
+                0,
+                0
+        );
     }
 
-    public static Response confirmFinishedConnection() {
-        return new Response(ResponseType.confirmFinishedConnection);
+    public static Response sendOrders(ConcurrentHashMap<Integer, Order> orders, long version) {
+        return Response.sendOrders(orders, version, 0);
     }
 
-    public static Response confirmReceivedOrder() {
-        return new Response(ResponseType.ConfirmReceivedOrder);
+    public static Response sendOrders(ConcurrentHashMap<Integer, Order> orders, long version, int correlationId) {
+        return new Response(ResponseType.SendOrders, orders, List.of(), version, List.of(), 0, correlationId);
     }
 
-    public static Response sendOrders(ConcurrentHashMap<Integer, Order> orders) {
-        return new Response(ResponseType.SendOrders, orders);
+    /**
+     * Gets the correlation id of the request this response answers.
+     *
+     * @return The correlation id, or zero for updates the server sends on its own.
+     */
+    public final int getCorrelationId() {
+        return this.correlationId;
+    }
+
+    public final List<MenuComponentRecord> getMenuComponents() {
+        return this.menuComponents;
+    }
+
+    /**
+     * Gets the version of the menu a menu change notification announces, or the one a menu response reflects.
+     *
+     * @return The version of the menu, or zero for any other response.
+     */
+    public final long getMenuVersion() {
+        return this.menuVersion;
+    }
+
+    public final List<OrderChange> getOrderChanges() {
+        return this.orderChanges;
     }
 
     public final ConcurrentHashMap<Integer, Order> getOrders() {
@@ -54,4 +172,14 @@ public class Response
         return this.responseType;
     }
 
+    /**
+     * Gets the version of the server context this response reflects.
+     * For a snapshot, it is the version of the whole orders list, and for changes, it is the version of the last one.
+     *
+     * @return The version, or zero for confirmations.
+     */
+    public final long getVersion() {
+        return this.version;
+    }
+
 }
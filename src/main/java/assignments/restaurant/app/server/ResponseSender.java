@@ -3,80 +3,268 @@
  *
  * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
  */
-
 package assignments.restaurant.app.server;
 
+import assignments.restaurant.app.codec.MessageOutput;
+import assignments.restaurant.data.Catalog;
 import assignments.restaurant.order.Order;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /*
  * Design Pattern: Observer
  *
  * This class is part of the Observer design pattern.
  * It keeps track of the server context, in order to update the orders list on the listening clients.
+ * Only the changes are sent to the clients, and a whole snapshot is sent just when a client asks for it.
+ *
+ * The updates are not written while the server context is notifying, since one slow client would stall every other
+ * request. They are put on a bounded queue instead, which is drained by a single writer at a time, and a client that
+ * lets it fill up is handled by the overflow policy of the server context.
  */
 
 public class ResponseSender
         implements Observer {
 
-    private final ObjectOutputStream sendToClient;
-    private final ServerContext      serverContext;
-    private final PrintStream        serverPrintStream;
+    private final Closeable               connection;
+    private final AtomicBoolean           draining = new AtomicBoolean(false);
+    private final ReentrantLock           lock     = new ReentrantLock();
+    private final BlockingQueue<Response> outbound;
+    private final MessageOutput           sendToClient;
+    private final ServerContext           serverContext;
+    private final PrintStream             serverPrintStream;
 
-    public ResponseSender(ObjectOutputStream sendToClient, ServerContext serverContext, PrintStream serverPrintStream) {
+    public ResponseSender(
+            MessageOutput sendToClient,
+            Closeable connection,
+            ServerContext serverContext,
+            PrintStream serverPrintStream
+                         ) {
         this.sendToClient = sendToClient;
+        this.connection = connection;
         this.serverContext = serverContext;
         this.serverPrintStream = serverPrintStream;
+        // After an overflow, the queue must take both a snapshot of the orders and a notification that the menu changed
+        this.outbound = new ArrayBlockingQueue<>(Math.max(2, serverContext.getOutboundQueueCapacity()));
         this.serverContext.addObserver(this);
     }
 
-    protected void confirmAdvancedOrder()
+    protected void confirmAdvancedOrder(int correlationId)
             throws IOException {
-        Response response = Response.confirmAdvancedOrder();
+        Response response = Response.confirmAdvancedOrder(correlationId);
         this.send(this.sendToClient, response);
     }
 
-    private void send(ObjectOutputStream sendToClient, Response response)
+    /**
+     * Counts the objects kept by the connection to this client between responses.
+     *
+     * @return The number of retained objects.
+     */
+    public int getRetainedObjects() {
+        return this.sendToClient.getRetainedObjects();
+    }
+
+    /**
+     * Counts the bytes written to this client so far.
+     *
+     * @return The number of bytes written.
+     */
+    public long getWrittenBytes() {
+        return this.sendToClient.getWrittenBytes();
+    }
+
+    private void send(MessageOutput sendToClient, Response response)
             throws IOException {
-        sendToClient.writeObject(response);
-        sendToClient.flush();
+        // The write may block on a slow client, so it must not pin the carrier of a virtual thread
+        this.lock.lock();
+        try {
+            long writtenBytes = sendToClient.getWrittenBytes();
+            sendToClient.write(response);
+            var metricsRegistry = this.serverContext.getMetricsRegistry();
+            metricsRegistry.counter("responses." + response.getResponseType()).increment();
+            metricsRegistry.histogram("responses.bytes").record(sendToClient.getWrittenBytes() - writtenBytes);
+        }
+        finally {
+            this.lock.unlock();
+        }
     }
 
-    protected void confirmFinishedConnection()
+    protected void confirmFinishedConnection(int correlationId)
             throws IOException {
-        Response response = Response.confirmFinishedConnection();
+        Response response = Response.confirmFinishedConnection(correlationId);
         this.send(this.sendToClient, response);
         //        this.serverPrintStream.println("Conexão finalizada.");
     }
 
-    protected void confirmReceivedOrder()
+    protected void confirmReceivedOrder(int correlationId)
             throws IOException {
-        Response response = Response.confirmReceivedOrder();
+        Response response = Response.confirmReceivedOrder(correlationId);
         this.send(this.sendToClient, response);
     }
 
-    @Override
-    public void update(Observable serverContext, Object object) {
+    private void drain() {
+        do {
+            Response response;
+            while (null != (response = this.takeNext())) {
+                try {
+                    this.send(this.sendToClient, response);
+                }
+                catch (IOException e) {
+                    // A client that no longer gets updates must not stay connected as if it did
+                    this.disconnect("Erro ao enviar pedidos para o cliente.");
+                    this.outbound.clear();
+                    this.draining.set(false);
+                    return;
+                }
+            }
+            this.draining.set(false);
+        } while (!this.outbound.isEmpty() && this.draining.compareAndSet(false, true));
+    }
+
+    /**
+     * Takes the next queued response, once the connection can take it.
+     * The event loop of a channel connection writes without blocking, so the writer waits for it instead of the
+     * socket, and the responses queued meanwhile are left for the overflow policy.
+     *
+     * @return The next response, or null if there is none.
+     */
+    private Response takeNext() {
+        if (this.connection instanceof ChannelConnection channelConnection) {
+            channelConnection.awaitOutboundCapacity();
+        }
+        return this.outbound.poll();
+    }
+
+    /**
+     * Queues a response to be written by a writer.
+     * It is only called while the server context is locked, so the responses are queued in the same order as the
+     * changes they carry.
+     *
+     * @param response The response to queue.
+     */
+    private void enqueue(Response response) {
+        if (!this.outbound.offer(response)) {
+            this.overflow(response);
+            return;
+        }
+        this.serverContext.getMetricsRegistry().histogram("outbound.queue.depth").record(this.outbound.size());
+        if (this.draining.compareAndSet(false, true)) {
+            this.serverContext.getWriters().execute(this::drain);
+        }
+    }
+
+    /**
+     * Stops sending updates to the client and closes its connection.
+     *
+     * @param message The reason, printed by the server.
+     */
+    private void disconnect(String message) {
+        this.serverContext.deleteObserver(this);
+        this.serverPrintStream.println(message);
         try {
-            var orders = this.serverContext.getOrders();
-            var clonedOrders = new ConcurrentHashMap<>(orders);
-            this.sendOrders(clonedOrders);
+            this.connection.close();
         }
         catch (IOException e) {
-            this.serverPrintStream.println("Erro ao enviar pedidos para o cliente.");
+            e.printStackTrace();
         }
     }
 
-    protected void sendOrders(ConcurrentHashMap<Integer, Order> orders)
+    private void overflow(Response response) {
+        this.serverContext.getMetricsRegistry().counter("outbound.overflows").increment();
+        Response menuChanged = null;
+        int correlationId = 0;
+        List<Response> droppedResponses = new ArrayList<>(this.outbound);
+        droppedResponses.add(response);
+        for (var droppedResponse : droppedResponses) {
+            if (ResponseType.MenuChanged == droppedResponse.getResponseType()) {
+                menuChanged = droppedResponse;
+            }
+            // A snapshot a client asked for must still answer its request
+            if (ResponseType.SendOrders == droppedResponse.getResponseType() &&
+                0 != droppedResponse.getCorrelationId()) {
+                correlationId = droppedResponse.getCorrelationId();
+            }
+        }
+        this.outbound.clear();
+        switch (this.serverContext.getOverflowPolicyType()) {
+            case DropAndResync -> {
+                if (ResponseType.SendOrders != response.getResponseType() ||
+                    correlationId != response.getCorrelationId()) {
+                    var orders = new ConcurrentHashMap<>(this.serverContext.getOrders());
+                    response = Response.sendOrders(orders, this.serverContext.getVersion(), correlationId);
+                }
+                this.enqueue(response);
+                // The snapshot does not carry the menu, so the client must still learn the latest change dropped
+                if (null != menuChanged) {
+                    this.enqueue(menuChanged);
+                }
+            }
+            case Disconnect -> this.disconnect("Um cliente não acompanhou as atualizações e será desconectado.");
+        }
+    }
+
+    /**
+     * Sends the part of the menu a client asked for, unless the client already has the current version of the menu.
+     * The menu of the server is the one the clients should order from, and it may have changed since they last fetched
+     * it.
+     *
+     * @param catalog The current menu.
+     * @param request The request that asked for the menu.
+     * @throws IOException if the response could not be sent.
+     */
+    protected void sendMenu(Catalog catalog, Request request)
             throws IOException {
-        Response response = Response.sendOrders(orders);
+        Response response;
+        if (catalog.getVersion() == request.getMenuVersion()) {
+            response = Response.menuNotModified(catalog.getVersion(), request.getCorrelationId());
+        }
+        else {
+            var menuSlice = request.getMenuSlice();
+            var menuComponents = catalog.fetchAll(
+                    menuSlice.restrictByCuisine(),
+                    menuSlice.restrictByCategory(),
+                    menuSlice.restrictByDecorator()
+                                                 );
+            response = Response.sendMenu(menuComponents, catalog.getVersion(), request.getCorrelationId());
+        }
         this.send(this.sendToClient, response);
     }
 
+    protected void sendOrderChanges(List<OrderChange> orderChanges) {
+        this.enqueue(Response.sendOrderChanges(orderChanges));
+    }
+
+    /**
+     * Queues a snapshot of the orders.
+     *
+     * @param orders        The orders to send.
+     * @param version       The version of the server context the orders reflect.
+     * @param correlationId The correlation id of the request that asked for the orders.
+     */
+    protected void sendOrders(ConcurrentHashMap<Integer, Order> orders, long version, int correlationId) {
+        this.enqueue(Response.sendOrders(orders, version, correlationId));
+    }
+
+    @Override
+    public void update(Observable serverContext, Object object) {
+        if (object instanceof List<?> changes) {
+            @SuppressWarnings("unchecked") var orderChanges = (List<OrderChange>) changes;
+            this.sendOrderChanges(orderChanges);
+        }
+        else if (object instanceof Catalog catalog) {
+            this.enqueue(Response.menuChanged(catalog.getVersion()));
+        }
+    }
+
 }
@@ -10,5 +10,9 @@ public enum ResponseType {
     ConfirmReceivedOrder,
     ConfirmAdvancedOrder,
     SendOrders,
+    SendOrderChanges,
     confirmFinishedConnection,
+    MenuChanged,
+    SendMenu,
+    MenuNotModified,
 }
@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.server;
+
+import java.time.Duration;
+
+/**
+ * How long the server keeps finished orders along with the orders still being handled.
+ * Orders still being handled are never evicted, so the bound on the number of orders may be exceeded while none of
+ * them is finished.
+ *
+ * @param finishedOrderRetention How long a finished order is kept after it was finished.
+ * @param maximumOfOrders        How many orders are kept before the oldest finished ones are evicted early.
+ */
+public record RetentionPolicy(Duration finishedOrderRetention, int maximumOfOrders) {
+
+}
@@ -7,57 +7,199 @@
 package assignments.restaurant.app.server;
 
 import assignments.restaurant.Manager;
+import assignments.restaurant.app.metrics.MetricsRegistry;
+import assignments.restaurant.app.metrics.MetricsReporter;
+import assignments.restaurant.app.store.OrderArchive;
+import assignments.restaurant.app.store.OrderStore;
+import assignments.restaurant.data.Data;
+import assignments.restaurant.data.MenuWatcher;
 import assignments.restaurant.order.Order;
 
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class Server {
 
-    private static PrintStream     serverPrintStream = System.out;
-    private final  ServerContext   serverContext;
-    private final  ExecutorService threadPool;
+    private static final String          noPath            = "-";
+    private static final String          selectorMode      = "-s";
+    private static final String          threadPoolMode    = "-t";
+    private static final String          virtualThreadMode = "-v";
+    private static       PrintStream     serverPrintStream = System.out;
+    private final        ServerContext   serverContext;
+    private final        ServerModeType  serverModeType;
+    private final        ExecutorService threadPool;
 
     public Server() {
-        this.threadPool = Executors.newFixedThreadPool(Manager.getInstance().getMaximumOfClients());
-        this.serverContext = new ServerContext();
+        this(ServerModeType.ThreadPool);
+    }
+
+    public Server(ServerModeType serverModeType) {
+        this(serverModeType, new ServerContext());
+    }
+
+    /**
+     * Creates a server that keeps its orders in a store, loading the orders already in it.
+     * A snapshot of the orders is taken periodically, so the journals replayed on the next start stay short, and the
+     * finished orders are moved to an archive in the same directory.
+     *
+     * @param serverModeType How the clients are served.
+     * @param storePath      The directory of the store.
+     * @throws UncheckedIOException if the store could not be opened or loaded.
+     */
+    public Server(ServerModeType serverModeType, Path storePath) {
+        this(serverModeType, Server.createServerContext(storePath));
+    }
+
+    private Server(ServerModeType serverModeType, ServerContext serverContext) {
+        this.serverModeType = serverModeType;
+        this.threadPool = switch (serverModeType) {
+            case ThreadPool -> Executors.newFixedThreadPool(Manager.getInstance().getMaximumOfClients());
+            case Selector -> Executors.newFixedThreadPool(Manager.getInstance().getNumberOfWorkers());
+            case VirtualThread -> Executors.newVirtualThreadPerTaskExecutor();
+        };
+        this.serverContext = serverContext;
+    }
+
+    private static ServerContext createServerContext(Path storePath) {
+        try {
+            var orderStore = new OrderStore(storePath);
+            var orderArchive = new OrderArchive(storePath.resolve("orders.archive"));
+            var manager = Manager.getInstance();
+            var serverContext = new ServerContext(
+                    manager.getOutboundQueueCapacity(),
+                    manager.getOverflowPolicyType(),
+                    orderStore,
+                    orderArchive
+            );
+            orderStore.start(manager.getSnapshotIntervalInSeconds());
+            return serverContext;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void loadMenu(Path menuPath) {
+        try {
+            Data.getInstance().load(menuPath);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public static void main(String[] args) {
         var arguments = processArguments(args);
-        new Server().run(arguments.getPort());
+        if (null != arguments.getMenuPath()) {
+            // Stored orders written by older versions refer to the items of the menu, so it is loaded before them
+            Server.loadMenu(arguments.getMenuPath());
+        }
+        var server = null == arguments.getStorePath()
+                     ? new Server(arguments.getServerModeType())
+                     : new Server(arguments.getServerModeType(), arguments.getStorePath());
+        // Finished orders are evicted once the retention policy no longer keeps them
+        var orderSweeper = new OrderSweeper(server.serverContext);
+        orderSweeper.start(Manager.getInstance().getSweepIntervalInSeconds());
+        if (null != arguments.getMetricsPath()) {
+            var metricsReporter = new MetricsReporter(server.getMetricsRegistry(), arguments.getMetricsPath());
+            metricsReporter.start(Manager.getInstance().getMetricsDumpIntervalInSeconds());
+        }
+        if (null != arguments.getMenuPath()) {
+            server.watchMenu(arguments.getMenuPath());
+        }
+        server.run(arguments.getPort());
     }
 
     protected static ServerArguments processArguments(String[] args) {
-        if (1 != args.length) {
+        if (1 > args.length || 5 < args.length) {
             throw new IllegalArgumentException("Você deve fornecer uma porta!");
         }
 
         int port = ServerArguments.findPort(args[0]);
 
-        return new ServerArguments(port);
+        if (1 == args.length) {
+            return new ServerArguments(port);
+        }
+
+        ServerModeType serverModeType = switch (args[1]) {
+            case threadPoolMode -> ServerModeType.ThreadPool;
+            case selectorMode -> ServerModeType.Selector;
+            case virtualThreadMode -> ServerModeType.VirtualThread;
+            default -> throw new IllegalArgumentException(
+                    "Você deve fornecer um modo de execução válido: " + threadPoolMode + " (uma thread por cliente), " +
+                    selectorMode + " (seletor não bloqueante) ou " + virtualThreadMode + " (uma thread virtual por cliente)!");
+        };
+
+        if (2 == args.length) {
+            return new ServerArguments(port, serverModeType);
+        }
+
+        // The metrics are dumped to the given file, which can be read while the server runs
+        Path metricsPath = noPath.equals(args[2]) ? null : Path.of(args[2]);
+
+        if (3 == args.length) {
+            return new ServerArguments(port, serverModeType, metricsPath);
+        }
+
+        // The menu is loaded from the given file, and reloaded whenever it changes
+        Path menuPath = noPath.equals(args[3]) ? null : Path.of(args[3]);
+
+        if (4 == args.length) {
+            return new ServerArguments(port, serverModeType, metricsPath, menuPath);
+        }
+
+        // The orders are kept in the given directory, and loaded from it when the server starts again
+        return new ServerArguments(port, serverModeType, metricsPath, menuPath, Path.of(args[4]));
     }
 
     public static void setServerPrintStream(PrintStream printStream) {
         Server.serverPrintStream = printStream;
     }
 
+    public MetricsRegistry getMetricsRegistry() {
+        return this.serverContext.getMetricsRegistry();
+    }
+
     public ConcurrentHashMap<Integer, Order> getOrders() {
         return this.serverContext.getOrders();
     }
 
     public int run(int port) {
         try {
-            ServerSocket serverSocket = new ServerSocket(port);
-            this.runSocket(serverSocket);
+            switch (this.serverModeType) {
+                case ThreadPool, VirtualThread -> {
+                    ServerSocket serverSocket = new ServerSocket(port);
+                    this.runSocket(serverSocket);
+                }
+                case Selector -> {
+                    ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+                    try {
+                        serverSocketChannel.bind(new InetSocketAddress(port));
+                    }
+                    catch (IOException e) {
+                        serverSocketChannel.close();
+                        throw e;
+                    }
+                    this.runSelector(serverSocketChannel);
+                }
+            }
         }
         catch (IOException e) {
-            if (e.getMessage().contains("Address already in use")) {
+            if (null != e.getMessage() && e.getMessage().contains("Address already in use")) {
                 serverPrintStream.println("A porta " + port + " já está em uso. Tentando outra porta...");
                 return this.run(port + 1);
             }
@@ -68,6 +210,27 @@ public class Server {
         return port;
     }
 
+    /**
+     * Serves the menu from a file, and reloads it whenever the file changes.
+     * Only the records that changed are applied, and the listening clients are told that the menu changed.
+     *
+     * @param menuPath The file to load the menu from.
+     * @return The watcher of the file, which stops watching when closed.
+     * @throws UncheckedIOException if the file could not be loaded or watched.
+     */
+    public MenuWatcher watchMenu(Path menuPath) {
+        try {
+            var menuWatcher = new MenuWatcher(menuPath, this.serverContext::publishMenuChange, serverPrintStream);
+            var catalog = menuWatcher.reload();
+            serverPrintStream.println("Cardápio carregado de " + menuPath + ": " + catalog.size() + " itens.");
+            menuWatcher.start();
+            return menuWatcher;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     protected void runSocket(ServerSocket serverSocket) {
         try {
             serverPrintStream.println(
@@ -85,5 +248,65 @@ public class Server {
         }
     }
 
-}
+    /**
+     * Serves the clients with a few event loops instead of one thread per connection.
+     * Accepted channels are spread over the event loops in a round-robin fashion, and the requests are handled by the
+     * worker pool, so the number of connections is not bounded by the number of threads.
+     *
+     * @param serverSocketChannel The bound server channel.
+     */
+    protected void runSelector(ServerSocketChannel serverSocketChannel) {
+        List<EventLoop> eventLoops = new ArrayList<>();
+        List<Thread> eventLoopThreads = new ArrayList<>();
+        try (
+                serverSocketChannel;
+                Selector acceptSelector = Selector.open()
+        ) {
+            for (
+                    int i = 0;
+                    i < Manager.getInstance().getNumberOfEventLoops();
+                    i++
+            ) {
+                var eventLoop = new EventLoop();
+                eventLoops.add(eventLoop);
+                eventLoopThreads.add(Thread.ofPlatform().name("event-loop-" + i).start(eventLoop));
+            }
+
+            serverSocketChannel.configureBlocking(false);
+            serverSocketChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+            serverPrintStream.println("O servidor do Restaurante está rodando na porta " +
+                                      serverSocketChannel.socket().getLocalPort() + "...");
+
+            int nextEventLoop = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                acceptSelector.select();
+                acceptSelector.selectedKeys().clear();
+
+                SocketChannel clientChannel;
+                while (null != (clientChannel = serverSocketChannel.accept())) {
+                    clientChannel.configureBlocking(false);
+                    clientChannel.socket().setTcpNoDelay(true);
+                    serverPrintStream.println("Um novo cliente se conectou.");
 
+                    var eventLoop = eventLoops.get(nextEventLoop);
+                    nextEventLoop = (nextEventLoop + 1) % eventLoops.size();
+                    eventLoop.register(new ChannelConnection(
+                            clientChannel,
+                            eventLoop,
+                            this.threadPool,
+                            this.serverContext,
+                            serverPrintStream
+                    ));
+                }
+            }
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+        finally {
+            eventLoopThreads.forEach(Thread::interrupt);
+            this.threadPool.shutdown();
+        }
+    }
+
+}
@@ -8,11 +8,75 @@ package assignments.restaurant.app.server;
 
 import assignments.restaurant.app.ConnectionArguments;
 
+import java.nio.file.Path;
+
 public final class ServerArguments
         extends ConnectionArguments {
 
+    private final Path           menuPath;
+    private final Path           metricsPath;
+    private final ServerModeType serverModeType;
+    private final Path           storePath;
+
     public ServerArguments(int port) {
+        this(port, ServerModeType.ThreadPool);
+    }
+
+    public ServerArguments(int port, ServerModeType serverModeType) {
+        this(port, serverModeType, null);
+    }
+
+    public ServerArguments(int port, ServerModeType serverModeType, Path metricsPath) {
+        this(port, serverModeType, metricsPath, null);
+    }
+
+    public ServerArguments(int port, ServerModeType serverModeType, Path metricsPath, Path menuPath) {
+        this(port, serverModeType, metricsPath, menuPath, null);
+    }
+
+    public ServerArguments(
+            int port,
+            ServerModeType serverModeType,
+            Path metricsPath,
+            Path menuPath,
+            Path storePath
+                          ) {
         super(port);
+        this.serverModeType = serverModeType;
+        this.metricsPath = metricsPath;
+        this.menuPath = menuPath;
+        this.storePath = storePath;
+    }
+
+    /**
+     * Gets the file the menu is loaded from and watched for changes.
+     *
+     * @return The path of the file, or null if the built-in menu is served.
+     */
+    public Path getMenuPath() {
+        return this.menuPath;
+    }
+
+    /**
+     * Gets the file the metrics of the server are periodically dumped to.
+     *
+     * @return The path of the file, or null if the metrics are not dumped.
+     */
+    public Path getMetricsPath() {
+        return this.metricsPath;
+    }
+
+    public ServerModeType getServerModeType() {
+        return this.serverModeType;
+    }
+
+    /**
+     * Gets the directory the orders are stored in, so they survive a restart of the server.
+     *
+     * @return The path of the directory, or null if the orders are only kept in memory.
+     */
+    public Path getStorePath() {
+        return this.storePath;
     }
 
 }
@@ -3,39 +3,486 @@
  *
  * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
  */
-
 package assignments.restaurant.app.server;
 
+import assignments.restaurant.Manager;
+import assignments.restaurant.app.metrics.MetricsRegistry;
+import assignments.restaurant.app.store.OrderArchive;
+import assignments.restaurant.app.store.OrderStore;
+import assignments.restaurant.data.Catalog;
 import assignments.restaurant.order.Order;
+import assignments.restaurant.order.state.StateType;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Observable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Design Pattern: Observer
+ *
+ * This class is part of the Observer design pattern.
+ * Every change on the orders is numbered with a new version and published to the observers as a list of OrderChange, so the
+ * listening clients receive only what changed instead of the whole orders list.
+ * When the menu is replaced, the new catalog is published as well, so the clients can be told to drop their cached menu.
+ * When a store is given, every published change is appended to it before it is published, and the orders are
+ * loaded from it when the server context is created. The lock is released before waiting for the changes to be
+ * durable, so one client waiting for the disk does not hold back the others, and the clients are only told their
+ * changes were received once they are durable.
+ * Finished orders are evicted from the orders by the sweeper once the retention policy no longer keeps them, and moved
+ * to the archive when one is given, so the orders sent to the clients do not grow during a whole service day. The
+ * finished orders are queued in the order they were finished, so the sweeper only looks at the head of the queue to
+ * find the ones to evict, without holding the lock, and only takes it to remove a few orders at a time, once they are
+ * archived.
+ * Observers must not block while notified, since the lock is held; each client queues the changes and writes them on
+ * one of the writers.
+ */
 
 public class ServerContext
         extends Observable {
 
-    private final AtomicInteger                     orderCounter = new AtomicInteger(0);
-    private final ConcurrentHashMap<Integer, Order> orders       = new ConcurrentHashMap<>();
+    private static final int                               evictionBatchSize     = 256;
+    private final        Deque<FinishedOrder>              finishedOrders        = new ConcurrentLinkedDeque<>();
+    /*
+     * A ReentrantLock is used instead of synchronized methods, so virtual threads waiting for it unmount from their
+     * carrier thread instead of pinning it.
+     */
+    private final        ReentrantLock                     lock                  = new ReentrantLock();
+    private final        MetricsRegistry                   metricsRegistry       = new MetricsRegistry();
+    private final        OrderArchive                      orderArchive;
+    private final        AtomicInteger                     orderCounter          = new AtomicInteger(0);
+    private final        ConcurrentHashMap<Integer, Order> orders                = new ConcurrentHashMap<>();
+    private final        int                               outboundQueueCapacity;
+    private final        OverflowPolicyType                overflowPolicyType;
+    private final        OrderStore                        orderStore;
+    private final        RetentionPolicy                   retentionPolicy;
+    private final        ExecutorService                   writers               = Executors.newVirtualThreadPerTaskExecutor();
+    private              long                              version               = 0;
 
-    protected synchronized void addOrder(Order order) {
-        int orderId = this.orderCounter.incrementAndGet();
-        this.orders.put(orderId, order);
-        this.setChanged();
-        this.notifyObservers();
+    public ServerContext() {
+        this(Manager.getInstance().getOutboundQueueCapacity(), Manager.getInstance().getOverflowPolicyType());
+    }
+
+    public ServerContext(int outboundQueueCapacity, OverflowPolicyType overflowPolicyType) {
+        this(outboundQueueCapacity, overflowPolicyType, null);
+    }
+
+    /**
+     * Creates a server context whose orders are kept in a store.
+     *
+     * @param outboundQueueCapacity The capacity of the queue of responses of each client.
+     * @param overflowPolicyType    What to do with a client whose queue is full.
+     * @param orderStore            The store to load the orders from and append the changes to, or null to keep the
+     *                              orders only in memory.
+     * @throws UncheckedIOException if the orders could not be loaded.
+     */
+    public ServerContext(int outboundQueueCapacity, OverflowPolicyType overflowPolicyType, OrderStore orderStore) {
+        this(outboundQueueCapacity, overflowPolicyType, orderStore, null);
+    }
+
+    /**
+     * Creates a server context whose orders are kept in a store, and whose finished orders are moved to an archive.
+     *
+     * @param outboundQueueCapacity The capacity of the queue of responses of each client.
+     * @param overflowPolicyType    What to do with a client whose queue is full.
+     * @param orderStore            The store to load the orders from and append the changes to, or null to keep the
+     *                              orders only in memory.
+     * @param orderArchive          The archive to move the finished orders to, or null to keep them with the others.
+     * @throws UncheckedIOException if the orders could not be loaded.
+     */
+    public ServerContext(
+            int outboundQueueCapacity,
+            OverflowPolicyType overflowPolicyType,
+            OrderStore orderStore,
+            OrderArchive orderArchive
+                        ) {
+        this(
+                outboundQueueCapacity,
+                overflowPolicyType,
+                orderStore,
+                orderArchive,
+                new RetentionPolicy(
+                        Duration.ofSeconds(Manager.getInstance().getFinishedOrderRetentionInSeconds()),
+                        Manager.getInstance().getMaximumOfOrders()
+                )
+        );
+    }
+
+    /**
+     * Creates a server context whose orders are kept in a store, and whose finished orders are evicted following a
+     * retention policy.
+     *
+     * @param outboundQueueCapacity The capacity of the queue of responses of each client.
+     * @param overflowPolicyType    What to do with a client whose queue is full.
+     * @param orderStore            The store to load the orders from and append the changes to, or null to keep the
+     *                              orders only in memory.
+     * @param orderArchive          The archive to move the evicted orders to, or null to drop them.
+     * @param retentionPolicy       When the finished orders are evicted.
+     * @throws UncheckedIOException if the orders could not be loaded.
+     * @see #sweep()
+     */
+    public ServerContext(
+            int outboundQueueCapacity,
+            OverflowPolicyType overflowPolicyType,
+            OrderStore orderStore,
+            OrderArchive orderArchive,
+            RetentionPolicy retentionPolicy
+                        ) {
+        this.outboundQueueCapacity = outboundQueueCapacity;
+        this.overflowPolicyType = overflowPolicyType;
+        this.orderStore = orderStore;
+        this.orderArchive = orderArchive;
+        this.retentionPolicy = retentionPolicy;
+        // Every connected client listens to the changes through its sender
+        this.metricsRegistry.gauge("clients.connected", this::countObservers);
+        this.metricsRegistry.gauge("orders.count", this.orders::size);
+        if (null != orderStore) {
+            this.metricsRegistry.gauge("journal.syncs", orderStore::getSyncs);
+            this.metricsRegistry.gauge("journal.snapshots", orderStore::getSnapshots);
+            try {
+                var orderSnapshot = orderStore.load();
+                this.orders.putAll(orderSnapshot.getOrders());
+                // The ids of new orders continue after the highest one ever added
+                this.orderCounter.set(orderSnapshot.getOrderCounter());
+                this.version = orderSnapshot.getVersion();
+                // When the loaded orders were finished is not kept, so they are retained as if they were just finished
+                long now = System.nanoTime();
+                var finishedAt = Instant.now();
+                orderSnapshot.getOrders().forEach((orderId, order) -> {
+                    if (StateType.Finished == order.getStateType()) {
+                        this.finishedOrders.add(new FinishedOrder(orderId, now, finishedAt));
+                    }
+                });
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (null != orderArchive) {
+            this.metricsRegistry.gauge("archive.orders", orderArchive::size);
+        }
+        this.metricsRegistry.gauge("orders.finished", this.finishedOrders::size);
+    }
+
+    protected void addOrder(Order order) {
+        this.addOrders(List.of(order));
+    }
+
+    /**
+     * Adds many orders at once, taking the lock and notifying the observers only once for all of them.
+     *
+     * @param orders The orders to add.
+     */
+    protected void addOrders(List<Order> orders) {
+        long position;
+        this.lock.lock();
+        try {
+            List<OrderChange> orderChanges = new ArrayList<>(orders.size());
+            for (var order : orders) {
+                int orderId = this.orderCounter.incrementAndGet();
+                this.orders.put(orderId, order);
+                orderChanges.add(OrderChange.added(++this.version, orderId, order));
+            }
+            position = this.publish(orderChanges);
+        }
+        finally {
+            this.lock.unlock();
+        }
+        this.awaitDurable(position);
+    }
+
+    protected void advanceOrder(int orderId) {
+        this.advanceOrders(List.of(orderId));
+    }
+
+    /**
+     * Advances many orders at once, taking the lock and notifying the observers only once for all of them.
+     * Unknown and already finished orders are skipped, so a batch is never applied only in part, and orders that get
+     * finished are queued to be evicted.
+     *
+     * @param orderIds The ids of the orders to advance.
+     */
+    protected void advanceOrders(List<Integer> orderIds) {
+        long position;
+        this.lock.lock();
+        try {
+            List<OrderChange> orderChanges = new ArrayList<>(orderIds.size());
+            for (int orderId : orderIds) {
+                var order = this.orders.get(orderId);
+                if (null != order && StateType.Finished != order.getStateType()) {
+                    var previousStateType = order.getStateType();
+                    order.advance();
+                    orderChanges.add(OrderChange.advanced(++this.version, orderId, order.getStateType()));
+                    if (StateType.Finished != previousStateType && StateType.Finished == order.getStateType()) {
+                        this.finishedOrders.add(new FinishedOrder(orderId, System.nanoTime(), Instant.now()));
+                    }
+                }
+            }
+            position = this.publish(orderChanges);
+        }
+        finally {
+            this.lock.unlock();
+        }
+        this.awaitDurable(position);
+    }
+
+    /**
+     * Waits for the changes appended up to a position of the store to be durable.
+     *
+     * @param position The position returned when publishing the changes.
+     * @throws UncheckedIOException if the store could not be forced.
+     */
+    private void awaitDurable(long position) {
+        if (null == this.orderStore) {
+            return;
+        }
+        try {
+            this.orderStore.awaitDurable(position);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return this.metricsRegistry;
+    }
+
+    protected ConcurrentHashMap<Integer, Order> getOrders() {
+        this.lock.lock();
+        try {
+            return this.orders;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    protected int getOutboundQueueCapacity() {
+        return this.outboundQueueCapacity;
+    }
+
+    protected OverflowPolicyType getOverflowPolicyType() {
+        return this.overflowPolicyType;
     }
 
-    protected synchronized void advanceOrder(int orderId) {
-        var order = this.orders.get(orderId);
-        if (null != order) {
-            order.advance();
+    protected long getVersion() {
+        this.lock.lock();
+        try {
+            return this.version;
         }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the executor the clients write their queued responses on.
+     * Writes may block on slow clients, so each one runs on its own virtual thread.
+     *
+     * @return The shared writers executor.
+     */
+    protected ExecutorService getWriters() {
+        return this.writers;
+    }
+
+    /**
+     * Appends the changes to the store and publishes them to the observers.
+     *
+     * @param orderChanges The changes made at once.
+     * @return The position the store must be durable up to for the changes to be durable.
+     * @throws UncheckedIOException if the changes could not be appended.
+     */
+    private long publish(List<OrderChange> orderChanges) {
+        if (orderChanges.isEmpty()) {
+            return 0;
+        }
+        long position = 0;
+        if (null != this.orderStore) {
+            try {
+                position = this.orderStore.append(orderChanges);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        long start = System.nanoTime();
         this.setChanged();
-        this.notifyObservers();
+        this.notifyObservers(List.copyOf(orderChanges));
+        this.metricsRegistry.histogram("broadcast.fanout.nanoseconds").record(System.nanoTime() - start);
+        this.metricsRegistry.histogram("broadcast.changes").record(orderChanges.size());
+        return position;
+    }
+
+    /**
+     * Tells every listening client that the menu changed.
+     * Only the version of the new menu is sent, and each client fetches the menu again when it needs it.
+     *
+     * @param catalog The new menu.
+     */
+    public void publishMenuChange(Catalog catalog) {
+        this.lock.lock();
+        try {
+            this.setChanged();
+            this.notifyObservers(catalog);
+            this.metricsRegistry.counter("menu.changes").increment();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    protected void removeOrder(int orderId) {
+        long position = 0;
+        this.lock.lock();
+        try {
+            if (null != this.orders.remove(orderId)) {
+                position = this.publish(List.of(OrderChange.removed(++this.version, orderId)));
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
+        this.awaitDurable(position);
+    }
+
+    /**
+     * Evicts the finished orders the retention policy no longer keeps, the oldest first, and publishes their removal.
+     * The queue of finished orders is read without the lock, and the lock is only held to evict a batch of orders at a
+     * time, so the clients are not held back for the whole sweep. Sweeps must not run concurrently, which the sweeper
+     * ensures by running them on a single thread.
+     *
+     * @return The number of evicted orders.
+     * @throws UncheckedIOException if the evicted orders could not be archived.
+     */
+    public int sweep() {
+        long now = System.nanoTime();
+        int excess = this.orders.size() - this.retentionPolicy.maximumOfOrders();
+        long retention = this.retentionPolicy.finishedOrderRetention().toNanos();
+        int candidates = 0;
+        int evictable = 0;
+        for (var finishedOrder : this.finishedOrders) {
+            // Orders removed since they were finished are only taken from the queue
+            boolean isPresent = this.orders.containsKey(finishedOrder.orderId());
+            // The queue is sorted by finishing time, so no order after one that is kept needs to be evicted
+            if (isPresent && evictable >= excess && retention > now - finishedOrder.finishedAtNanoTime()) {
+                break;
+            }
+            candidates++;
+            if (isPresent) {
+                evictable++;
+            }
+        }
+
+        int evicted = 0;
+        while (0 < candidates) {
+            int batchSize = Math.min(candidates, evictionBatchSize);
+            evicted += this.evict(batchSize);
+            candidates -= batchSize;
+        }
+        this.metricsRegistry.counter("orders.evicted").add(evicted);
+        return evicted;
     }
 
-    protected synchronized ConcurrentHashMap<Integer, Order> getOrders() {
-        return this.orders;
+    /**
+     * Evicts the finished orders at the head of the queue.
+     * Orders removed since they were finished are skipped. The whole batch is archived and forced before any order is
+     * removed, without holding the lock, since finished orders no longer change. If the archive fails, the batch is put
+     * back at the head of the queue, and the orders already archived are not archived again by the next sweep.
+     *
+     * @param count The number of finished orders to take from the queue.
+     * @return The number of evicted orders.
+     * @throws UncheckedIOException if the evicted orders could not be archived.
+     */
+    private int evict(int count) {
+        List<FinishedOrder> batch = new ArrayList<>(count);
+        for (
+                int i = 0;
+                i < count;
+                i++
+        ) {
+            var finishedOrder = this.finishedOrders.poll();
+            if (null == finishedOrder) {
+                break;
+            }
+            batch.add(finishedOrder);
+        }
+
+        if (null != this.orderArchive) {
+            try {
+                for (var finishedOrder : batch) {
+                    var order = this.orders.get(finishedOrder.orderId());
+                    if (null != order && null == this.orderArchive.findById(finishedOrder.orderId())) {
+                        this.orderArchive.add(finishedOrder.orderId(), order, finishedOrder.finishedAt());
+                    }
+                }
+                // The archived orders must be durable before their removal is
+                this.orderArchive.force();
+            }
+            catch (IOException e) {
+                batch.reversed().forEach(this.finishedOrders::addFirst);
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        long position;
+        int evicted = 0;
+        this.lock.lock();
+        try {
+            List<OrderChange> orderChanges = new ArrayList<>(batch.size());
+            for (var finishedOrder : batch) {
+                if (null != this.orders.remove(finishedOrder.orderId())) {
+                    orderChanges.add(OrderChange.removed(++this.version, finishedOrder.orderId()));
+                    evicted++;
+                }
+            }
+            position = this.publish(orderChanges);
+        }
+        finally {
+            this.lock.unlock();
+        }
+        this.awaitDurable(position);
+        return evicted;
+    }
+
+    /**
+     * Sends a snapshot of every order to a client, along with the version it reflects.
+     * The snapshot is queued while the lock is held, so no change can be published to the client between the copy and
+     * the snapshot itself.
+     *
+     * @param responseSender The sender of the client that asked for the orders.
+     * @param correlationId  The correlation id of the request that asked for the orders.
+     */
+    protected void sendOrders(ResponseSender responseSender, int correlationId) {
+        this.lock.lock();
+        try {
+            responseSender.sendOrders(new ConcurrentHashMap<>(this.orders), this.version, correlationId);
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * An order waiting to be evicted.
+     *
+     * @param orderId            The id of the order.
+     * @param finishedAtNanoTime When the order was finished, as given by {@link System#nanoTime()}, which the retention
+     *                           is measured with.
+     * @param finishedAt         When the order was finished, by the wall clock, which is kept in the archive.
+     */
+    private record FinishedOrder(int orderId, long finishedAtNanoTime, Instant finishedAt) {
+
     }
 
 }
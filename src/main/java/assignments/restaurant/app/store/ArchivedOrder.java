@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.store;
+
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.PaymentType;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A finished order, as kept in the archive.
+ * Only what identifies the order is kept: the menu components are given by the ids of their menu records, and the
+ * card number of a credit card payment is dropped.
+ *
+ * @param orderId           The id of the order.
+ * @param finishedAt        When the order was finished.
+ * @param orderCategoryType The category of the order.
+ * @param paymentType       How the order was paid.
+ * @param customerName      The name of the customer, cut to fit the archive.
+ * @param totalCost         The total cost of the order.
+ * @param menuComponentIds  The ids of the appetizer, main course, beverage and dessert, each followed by the id of its
+ *                          outermost decorator, or by an empty id if it was not decorated.
+ */
+public record ArchivedOrder(
+        int orderId,
+        Instant finishedAt,
+        OrderCategoryType orderCategoryType,
+        PaymentType paymentType,
+        String customerName,
+        double totalCost,
+        List<String> menuComponentIds
+) {
+
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.store;
+
+import assignments.restaurant.component.Decorator;
+import assignments.restaurant.component.MenuComponent;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.PaymentType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A file of finished orders, mapped into memory, so they can leave the orders kept by the server without being lost.
+ * <p>
+ * Every order takes a record of fixed size, so the position of a record follows from its slot. The records are kept in
+ * the order the orders were finished, which makes a range of finishing times a binary search away, and an index from
+ * the id of each order to its slot is rebuilt when the archive is opened. The file is mapped in chunks of many records,
+ * and a new chunk is mapped when the last one is full, so the records live outside the heap and nothing is remapped
+ * as the archive grows.
+ * <p>
+ * The header holds the number of records, which is only written when the archive is forced, after the records
+ * themselves, so a record that was not completely written is never read.
+ */
+public class OrderArchive
+        implements Closeable {
+
+    /*
+     * Layout of a record:
+     * 0   int  order id
+     * 4   byte order category ordinal
+     * 5   byte payment type ordinal
+     * 8   long finishing time, in milliseconds since the epoch
+     * 16  long total cost, in cents
+     * 24  customer name, as its length in a byte followed by its UTF-8 bytes
+     * 64  eight menu component ids, each as its length in a byte followed by its UTF-8 bytes
+     */
+    private static final int                    customerNameOffset     = 24;
+    private static final int                    customerNameSize       = 40;
+    private static final int                    headerSize             = 16;
+    private static final byte[]                 magic                  = {'O', 'A', 'R', 'C'};
+    private static final int                    menuComponentIdSize    = 24;
+    private static final int                    menuComponentsOffset   = 64;
+    private static final int                    numberOfMenuComponents = 8;
+    private static final int                    recordSize             = 256;
+    private static final int                    recordsPerChunk        = 4096;
+    private static final int                    sizeOffset             = 8;
+    private final        FileChannel            channel;
+    private final        List<MappedByteBuffer> chunks                 = new ArrayList<>();
+    private final        MappedByteBuffer       header;
+    private final        ReentrantLock          lock                   = new ReentrantLock();
+    private              int                    forcedSize;
+    private              int[]                  indexOrderIds          = new int[1024];
+    private              int[]                  indexSlots             = new int[1024];
+    private              long                   lastFinishedAt         = Long.MIN_VALUE;
+    private              int                    size;
+
+    /**
+     * Opens an archive, creating it if it does not exist.
+     *
+     * @param path The file of the archive.
+     * @throws IOException if the file could not be opened or is not an archive.
+     */
+    public OrderArchive(Path path)
+            throws IOException {
+        this.channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+                                       );
+        try {
+            boolean isNew = 0 == this.channel.size();
+            this.header = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize);
+            if (isNew) {
+                this.header.put(0, magic).putInt(magic.length, recordSize).putInt(sizeOffset, 0);
+                this.header.force();
+            }
+
+            byte[] received = new byte[magic.length];
+            this.header.get(0, received);
+            int storedSize = this.header.getInt(sizeOffset);
+            long capacity = (this.channel.size() - headerSize) / recordSize;
+            boolean isValid = Arrays.equals(magic, received) && recordSize == this.header.getInt(magic.length);
+            if (!isValid || 0 > storedSize || capacity < storedSize) {
+                throw new IOException("Arquivo de pedidos inválido.");
+            }
+
+            while (storedSize > this.size) {
+                if (this.chunks.size() * recordsPerChunk == this.size) {
+                    this.mapChunk();
+                }
+                var record = this.getRecord(this.size);
+                this.index(record.getInt(0), this.size);
+                this.lastFinishedAt = record.getLong(8);
+                this.size++;
+            }
+            this.forcedSize = this.size;
+        }
+        catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Spreads the bits of an order id, so consecutive ids do not fill consecutive entries of the index.
+     */
+    private static int hash(int orderId) {
+        int hash = orderId * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static String readString(MappedByteBuffer record, int offset) {
+        byte[] bytes = new byte[Byte.toUnsignedInt(record.get(offset))];
+        record.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a string as its length followed by its bytes, cutting it at a character boundary if it does not fit.
+     */
+    private static void writeString(MappedByteBuffer record, int offset, int size, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, size - 1);
+        // Continuation bytes of UTF-8 start with the bits 10
+        while (length < bytes.length && 0x80 == (bytes[length] & 0xC0)) {
+            length--;
+        }
+        record.put(offset, (byte) length);
+        record.put(offset + 1, bytes, 0, length);
+        record.put(offset + 1 + length, new byte[size - 1 - length]);
+    }
+
+    /**
+     * Lists the innermost component of a course and its outermost decorator, if any.
+     */
+    private static String[] getMenuComponentIds(MenuComponent menuComponent) {
+        var innermost = menuComponent;
+        while (innermost instanceof Decorator decorator) {
+            innermost = decorator.getDecorated();
+        }
+        return new String[]{innermost.getId(), innermost == menuComponent ? "" : menuComponent.getId()};
+    }
+
+    /**
+     * Writes a finished order to the archive, without forcing it to the disk.
+     * The finishing time never goes backwards, so the records stay sorted by it even if the clock does.
+     *
+     * @param orderId    The id of the order.
+     * @param order      The finished order.
+     * @param finishedAt When the order was finished.
+     * @throws IOException if the archive could not grow.
+     * @see #force()
+     */
+    public void add(int orderId, Order order, Instant finishedAt)
+            throws IOException {
+        this.lock.lock();
+        try {
+            if (this.chunks.size() * recordsPerChunk == this.size) {
+                this.mapChunk();
+            }
+            var record = this.getRecord(this.size);
+            this.lastFinishedAt = Math.max(this.lastFinishedAt, finishedAt.toEpochMilli());
+            record.putInt(0, orderId);
+            record.put(4, (byte) order.getCategory().ordinal());
+            record.put(5, (byte) order.getPaymentType().ordinal());
+            record.putLong(8, this.lastFinishedAt);
+            record.putLong(16, Math.round(order.getTotalCost() * 100));
+            OrderArchive.writeString(record, customerNameOffset, customerNameSize, order.getCustomerName());
+
+            List<String> menuComponentIds = new ArrayList<>(numberOfMenuComponents);
+            for (var menuComponent : List.<MenuComponent>of(
+                    order.getAppetizer(),
+                    order.getMainCourse(),
+                    order.getBeverage(),
+                    order.getDessert()
+            )) {
+                menuComponentIds.addAll(List.of(OrderArchive.getMenuComponentIds(menuComponent)));
+            }
+            for (
+                    int i = 0;
+                    i < numberOfMenuComponents;
+                    i++
+            ) {
+                int offset = menuComponentsOffset + i * menuComponentIdSize;
+                OrderArchive.writeString(record, offset, menuComponentIdSize, menuComponentIds.get(i));
+            }
+
+            this.index(orderId, this.size);
+            this.size++;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException {
+        this.lock.lock();
+        try {
+            this.forceRecords();
+            this.channel.close();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Finds a finished order by its id.
+     *
+     * @param orderId The id of the order.
+     * @return The order, or null if it is not in the archive.
+     */
+    public ArchivedOrder findById(int orderId) {
+        this.lock.lock();
+        try {
+            int mask = this.indexOrderIds.length - 1;
+            for (
+                    int i = OrderArchive.hash(orderId) & mask;
+                    0 != this.indexOrderIds[i];
+                    i = (i + 1) & mask
+            ) {
+                if (orderId == this.indexOrderIds[i]) {
+                    return this.read(this.indexSlots[i]);
+                }
+            }
+            return null;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Finds the orders finished in a range of time, in the order they were finished.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to   The end of the range, exclusive.
+     * @return The orders finished in the range.
+     */
+    public List<ArchivedOrder> findByFinishedAt(Instant from, Instant to) {
+        this.lock.lock();
+        try {
+            List<ArchivedOrder> archivedOrders = new ArrayList<>();
+            for (
+                    int slot = this.findFirstSlot(from.toEpochMilli());
+                    slot < this.size && to.toEpochMilli() > this.getRecord(slot).getLong(8);
+                    slot++
+            ) {
+                archivedOrders.add(this.read(slot));
+            }
+            return archivedOrders;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Finds the first slot whose order was finished at or after the given time.
+     */
+    private int findFirstSlot(long finishedAt) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (finishedAt > this.getRecord(middle).getLong(8)) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Forces the records written since the last force to the disk, and then the number of records, so the header never
+     * counts a record that is not durable.
+     *
+     * @throws IOException if the archive could not be forced.
+     */
+    public void force()
+            throws IOException {
+        this.lock.lock();
+        try {
+            this.forceRecords();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void forceRecords() {
+        if (this.forcedSize == this.size) {
+            return;
+        }
+        for (
+                int chunk = this.forcedSize / recordsPerChunk;
+                chunk < this.chunks.size() && chunk * recordsPerChunk < this.size;
+                chunk++
+        ) {
+            int from = Math.max(this.forcedSize - chunk * recordsPerChunk, 0);
+            int to = Math.min(this.size - chunk * recordsPerChunk, recordsPerChunk);
+            this.chunks.get(chunk).force(from * recordSize, (to - from) * recordSize);
+        }
+        // The count is only written now, as the header page could otherwise reach the disk before the records
+        this.header.putInt(sizeOffset, this.size);
+        this.header.force();
+        this.forcedSize = this.size;
+    }
+
+    /**
+     * Gets the record in a slot, as a view of its chunk starting at the record.
+     */
+    private MappedByteBuffer getRecord(int slot) {
+        return this.chunks.get(slot / recordsPerChunk).slice((slot % recordsPerChunk) * recordSize, recordSize);
+    }
+
+    /**
+     * Maps an order id to its slot, growing the index when it is half full.
+     * A later record of the same order replaces the earlier one.
+     */
+    private void index(int orderId, int slot) {
+        if (2 * (this.size + 1) > this.indexOrderIds.length) {
+            int[] orderIds = this.indexOrderIds;
+            int[] slots = this.indexSlots;
+            this.indexOrderIds = new int[2 * orderIds.length];
+            this.indexSlots = new int[2 * slots.length];
+            for (
+                    int i = 0;
+                    i < orderIds.length;
+                    i++
+            ) {
+                if (0 != orderIds[i]) {
+                    this.put(orderIds[i], slots[i]);
+                }
+            }
+        }
+        this.put(orderId, slot);
+    }
+
+    /**
+     * Maps the next chunk of records, growing the file.
+     */
+    private void mapChunk()
+            throws IOException {
+        long chunkSize = (long) recordsPerChunk * recordSize;
+        long position = headerSize + this.chunks.size() * chunkSize;
+        this.chunks.add(this.channel.map(FileChannel.MapMode.READ_WRITE, position, chunkSize));
+    }
+
+    private void put(int orderId, int slot) {
+        int mask = this.indexOrderIds.length - 1;
+        int i = OrderArchive.hash(orderId) & mask;
+        while (0 != this.indexOrderIds[i] && orderId != this.indexOrderIds[i]) {
+            i = (i + 1) & mask;
+        }
+        this.indexOrderIds[i] = orderId;
+        this.indexSlots[i] = slot;
+    }
+
+    private ArchivedOrder read(int slot) {
+        var record = this.getRecord(slot);
+        List<String> menuComponentIds = new ArrayList<>(numberOfMenuComponents);
+        for (
+                int i = 0;
+                i < numberOfMenuComponents;
+                i++
+        ) {
+            menuComponentIds.add(OrderArchive.readString(record, menuComponentsOffset + i * menuComponentIdSize));
+        }
+        return new ArchivedOrder(
+                record.getInt(0),
+                Instant.ofEpochMilli(record.getLong(8)),
+                OrderCategoryType.values()[record.get(4)],
+                PaymentType.values()[record.get(5)],
+                OrderArchive.readString(record, customerNameOffset),
+                record.getLong(16) / 100.0,
+                List.copyOf(menuComponentIds)
+        );
+    }
+
+    /**
+     * Counts the orders in the archive.
+     *
+     * @return The number of orders.
+     */
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.size;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.store;
+
+import assignments.restaurant.app.codec.BinaryMessageInput;
+import assignments.restaurant.app.codec.BinaryMessageOutput;
+import assignments.restaurant.app.codec.MessageCodec;
+import assignments.restaurant.app.server.OrderChange;
+import assignments.restaurant.app.server.Response;
+import assignments.restaurant.app.server.ResponseType;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only file of the changes on the orders, which the server replays on startup to get its orders back.
+ * <p>
+ * The file starts with a magic number and the version of the binary protocol its records are written with. Every
+ * record holds the changes published at once, written as a binary message of order changes, and is preceded by its
+ * checksum. A record that was not completely written, or whose checksum does not match, ends the journal, and is cut
+ * off when the journal is opened.
+ * <p>
+ * Appending only writes the record, and durability is waited for separately, so the server context can append while
+ * it is locked and wait after unlocking it. Waiting is a group commit: a single thread forces the file at a time, and
+ * every thread that appended while it did is covered by the next force, so the file is forced once per batch of
+ * changes instead of once per change.
+ */
+public class OrderJournal
+        implements Closeable {
+
+    private static final int           headerSize        = 8;
+    private static final byte[]        magic             = {'O', 'J', 'R', 'N'};
+    private static final int           maximumRecordSize = 64 * 1024 * 1024;
+    private final        ReentrantLock appendLock        = new ReentrantLock();
+    private final        FileChannel   channel;
+    private final        ReentrantLock forceLock         = new ReentrantLock();
+    private final        AtomicLong    syncs             = new AtomicLong(0);
+    private final        int           version;
+    private volatile     long          durablePosition;
+    private              long          position;
+
+    /**
+     * Opens a journal, creating it if it does not exist, and cuts off a record that was left incomplete.
+     *
+     * @param path The file of the journal.
+     * @throws IOException if the file could not be opened or is not a journal.
+     */
+    public OrderJournal(Path path)
+            throws IOException {
+        this.channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+                                       );
+        try {
+            this.version = this.readHeader();
+            this.position = this.scan();
+            if (this.channel.size() > this.position) {
+                this.channel.truncate(this.position);
+                this.channel.force(true);
+            }
+            this.durablePosition = this.position;
+        }
+        catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the changes at the end of the journal, without waiting for them to be durable.
+     *
+     * @param orderChanges The changes published at once.
+     * @return The position the journal must be durable up to for the changes to be durable.
+     * @throws IOException if the changes could not be written.
+     * @see #awaitDurable(long)
+     */
+    public long append(List<OrderChange> orderChanges)
+            throws IOException {
+        var message = new ByteArrayOutputStream();
+        new BinaryMessageOutput(message, this.version).write(Response.sendOrderChanges(orderChanges));
+        byte[] bytes = message.toByteArray();
+        var crc = new CRC32C();
+        crc.update(bytes);
+        var buffer = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+        buffer.putInt((int) crc.getValue()).put(bytes).flip();
+
+        this.appendLock.lock();
+        try {
+            while (buffer.hasRemaining()) {
+                this.position += this.channel.write(buffer, this.position);
+            }
+            return this.position;
+        }
+        finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the journal is durable up to the given position, forcing it to the disk if no other thread is.
+     *
+     * @param position The position returned when appending.
+     * @throws IOException if the journal could not be forced.
+     */
+    public void awaitDurable(long position)
+            throws IOException {
+        if (this.durablePosition >= position) {
+            return;
+        }
+        this.forceLock.lock();
+        try {
+            // Another thread may have forced the journal while this one was waiting for the lock
+            if (this.durablePosition >= position) {
+                return;
+            }
+            long writtenPosition = this.getPosition();
+            this.channel.force(false);
+            this.syncs.incrementAndGet();
+            this.durablePosition = writtenPosition;
+        }
+        finally {
+            this.forceLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the journal.
+     * A thread still forcing it is let finish first.
+     *
+     * @throws IOException if the file could not be closed.
+     */
+    @Override
+    public void close()
+            throws IOException {
+        this.forceLock.lock();
+        try {
+            this.channel.close();
+        }
+        finally {
+            this.forceLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the position after the last record written.
+     *
+     * @return The position, in bytes.
+     */
+    public long getPosition() {
+        this.appendLock.lock();
+        try {
+            return this.position;
+        }
+        finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    /**
+     * Counts the times the journal was forced to the disk.
+     *
+     * @return The number of forces.
+     */
+    public long getSyncs() {
+        return this.syncs.get();
+    }
+
+    /**
+     * Tells whether no record was written to the journal yet.
+     *
+     * @return True if the journal only has its header.
+     */
+    public boolean isEmpty() {
+        return headerSize == this.getPosition();
+    }
+
+    private DataInputStream openRecords()
+            throws IOException {
+        var inputStream = Channels.newInputStream(this.channel.position(headerSize));
+        return new DataInputStream(new BufferedInputStream(inputStream, 64 * 1024));
+    }
+
+    private int readHeader()
+            throws IOException {
+        if (0 == this.channel.size()) {
+            var header = ByteBuffer.allocate(headerSize).put(magic).putInt(MessageCodec.getCurrentVersion()).flip();
+            while (header.hasRemaining()) {
+                this.channel.write(header, header.position());
+            }
+            this.channel.force(true);
+            return MessageCodec.getCurrentVersion();
+        }
+
+        var header = ByteBuffer.allocate(headerSize);
+        while (header.hasRemaining()) {
+            if (0 > this.channel.read(header, header.position())) {
+                throw new IOException("Diário de pedidos inválido.");
+            }
+        }
+        header.flip();
+        byte[] received = new byte[magic.length];
+        header.get(received);
+        int version = header.getInt();
+        if (!Arrays.equals(magic, received) || 1 > version || MessageCodec.getCurrentVersion() < version) {
+            throw new IOException("Diário de pedidos inválido.");
+        }
+        return version;
+    }
+
+    /**
+     * Reads the next record, checking its checksum.
+     *
+     * @param records The stream of records.
+     * @return The message of the record, with its length, or null if there is no complete and valid record left.
+     * @throws IOException if the journal could not be read.
+     */
+    private static byte[] readRecord(DataInputStream records)
+            throws IOException {
+        try {
+            int checksum = records.readInt();
+            int length = records.readInt();
+            if (0 > length || maximumRecordSize < length) {
+                return null;
+            }
+            byte[] message = new byte[Integer.BYTES + length];
+            ByteBuffer.wrap(message).putInt(length);
+            records.readFully(message, Integer.BYTES, length);
+
+            var crc = new CRC32C();
+            crc.update(message);
+            return checksum == (int) crc.getValue() ? message : null;
+        }
+        catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads every change in the journal, in the order they were appended.
+     *
+     * @param consumer Applies each change.
+     * @throws IOException if the journal could not be read, or a record could not be decoded.
+     */
+    public void replay(Consumer<OrderChange> consumer)
+            throws IOException {
+        long end = this.getPosition();
+        var records = this.openRecords();
+        long position = headerSize;
+        while (position < end) {
+            byte[] message = OrderJournal.readRecord(records);
+            if (null == message) {
+                throw new IOException("Diário de pedidos corrompido na posição " + position + ".");
+            }
+            position += Integer.BYTES + message.length;
+            var input = new BinaryMessageInput(new ByteArrayInputStream(message), this.version);
+            if (!(input.read() instanceof Response response) ||
+                ResponseType.SendOrderChanges != response.getResponseType()) {
+                throw new IOException("Registro inesperado no diário de pedidos na posição " + position + ".");
+            }
+            response.getOrderChanges().forEach(consumer);
+        }
+    }
+
+    /**
+     * Finds the end of the last complete and valid record.
+     *
+     * @return The position after the record.
+     * @throws IOException if the journal could not be read.
+     */
+    private long scan()
+            throws IOException {
+        var records = this.openRecords();
+        long position = headerSize;
+        byte[] message;
+        while (null != (message = OrderJournal.readRecord(records))) {
+            position += Integer.BYTES + message.length;
+        }
+        return position;
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.store;
+
+import assignments.restaurant.app.server.OrderChange;
+import assignments.restaurant.order.Order;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The orders at a point in time, rebuilt by applying the changes made to them in the order they were made.
+ */
+public class OrderSnapshot {
+
+    private final Map<Integer, Order> orders;
+    private       int                 orderCounter;
+    private       long                version;
+
+    public OrderSnapshot() {
+        this(new HashMap<>(), 0, 0);
+    }
+
+    protected OrderSnapshot(Map<Integer, Order> orders, int orderCounter, long version) {
+        this.orders = orders;
+        this.orderCounter = orderCounter;
+        this.version = version;
+    }
+
+    /**
+     * Applies a change to the orders.
+     * The counter of order ids keeps the highest id ever added, even after its order is removed, so ids are not
+     * reused.
+     *
+     * @param orderChange The change to apply.
+     */
+    public void apply(OrderChange orderChange) {
+        switch (orderChange.orderChangeType()) {
+            case Added -> {
+                this.orders.put(orderChange.orderId(), orderChange.order());
+                this.orderCounter = Math.max(this.orderCounter, orderChange.orderId());
+            }
+            case Advanced -> {
+                var order = this.orders.get(orderChange.orderId());
+                if (null != order) {
+                    order.advanceTo(orderChange.stateType());
+                }
+            }
+            case Removed -> this.orders.remove(orderChange.orderId());
+        }
+        this.version = orderChange.version();
+    }
+
+    public int getOrderCounter() {
+        return this.orderCounter;
+    }
+
+    public Map<Integer, Order> getOrders() {
+        return this.orders;
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+}
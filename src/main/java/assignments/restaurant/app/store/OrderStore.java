@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.store;
+
+import assignments.restaurant.app.codec.BinaryMessageInput;
+import assignments.restaurant.app.codec.BinaryMessageOutput;
+import assignments.restaurant.app.codec.MessageCodec;
+import assignments.restaurant.app.server.OrderChange;
+import assignments.restaurant.app.server.Response;
+import assignments.restaurant.app.server.ResponseType;
+import assignments.restaurant.order.Order;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the orders in a directory, as a snapshot of every order followed by a tail of journals with the changes made
+ * since the snapshot.
+ * <p>
+ * Each journal is numbered with an epoch. Taking a snapshot only holds the store while the current journal is forced
+ * and a new one is started; the previous snapshot and the finished journals are then folded into the new snapshot on
+ * the side, while the changes keep being appended to the new journal, and the folded journals are deleted. The
+ * snapshot is written to a temporary file and moved over the previous one, and it records the epoch of the first
+ * journal it does not hold, so journals left behind by a crash during a snapshot are recognized and deleted.
+ * <p>
+ * Positions returned when appending count the bytes of every journal since the store was opened, so they keep
+ * increasing across journals.
+ */
+public class OrderStore
+        implements Closeable {
+
+    private static final String                   journalPrefix     = "orders-";
+    private static final String                   journalSuffix     = ".journal";
+    private static final byte[]                   magic             = {'O', 'S', 'N', 'P'};
+    private static final int                      ordersPerFrame    = 4096;
+    private static final String                   snapshotName      = "orders.snapshot";
+    private final        ReentrantLock            appendLock        = new ReentrantLock();
+    private final        Path                     directory;
+    private final        List<Segment>            finishedSegments  = new ArrayList<>();
+    private final        AtomicLong               finishedSyncs     = new AtomicLong(0);
+    private final        ScheduledExecutorService scheduler;
+    private final        ReentrantLock            snapshotLock      = new ReentrantLock();
+    private final        AtomicLong               snapshots         = new AtomicLong(0);
+    private volatile     Segment                  segment;
+
+    /**
+     * Opens the store, creating its directory if it does not exist.
+     *
+     * @param directory The directory of the snapshot and the journals.
+     * @throws IOException if the directory could not be read, or holds files that are not part of a store.
+     */
+    public OrderStore(Path directory)
+            throws IOException {
+        this.directory = directory;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                                                                          .name("order-snapshots")
+                                                                          .daemon(true)
+                                                                          .factory());
+        Files.createDirectories(directory);
+
+        long snapshotEpoch = 0;
+        if (Files.exists(this.getSnapshotPath())) {
+            try (var snapshot = this.openSnapshot()) {
+                snapshotEpoch = OrderStore.readSnapshotHeader(snapshot).epoch();
+            }
+        }
+
+        TreeMap<Long, Path> journals = new TreeMap<>();
+        try (var paths = Files.list(directory)) {
+            for (var path : (Iterable<Path>) paths::iterator) {
+                var name = path.getFileName().toString();
+                if (name.startsWith(journalPrefix) && name.endsWith(journalSuffix)) {
+                    var epoch = name.substring(journalPrefix.length(), name.length() - journalSuffix.length());
+                    journals.put(Long.parseLong(epoch), path);
+                }
+            }
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("Diário de pedidos com nome inválido em " + directory + ".", e);
+        }
+
+        long base = 0;
+        for (var entry : journals.entrySet()) {
+            if (snapshotEpoch > entry.getKey()) {
+                // The snapshot already holds these changes, but the journal was not deleted before a crash
+                Files.delete(entry.getValue());
+                continue;
+            }
+            var orderJournal = new OrderJournal(entry.getValue());
+            if (null != this.segment) {
+                this.finishedSegments.add(this.segment);
+            }
+            this.segment = new Segment(entry.getKey(), base, orderJournal, entry.getValue());
+            base += orderJournal.getPosition();
+        }
+        if (null == this.segment) {
+            this.segment = this.createSegment(snapshotEpoch, 0);
+        }
+    }
+
+    private static SnapshotHeader readSnapshotHeader(DataInputStream snapshot)
+            throws IOException {
+        byte[] received = new byte[magic.length];
+        snapshot.readFully(received);
+        int protocolVersion = snapshot.readInt();
+        boolean isSupported = 1 <= protocolVersion && MessageCodec.getCurrentVersion() >= protocolVersion;
+        if (!Arrays.equals(magic, received) || !isSupported) {
+            throw new IOException("Instantâneo de pedidos inválido.");
+        }
+        return new SnapshotHeader(
+                protocolVersion,
+                snapshot.readLong(),
+                snapshot.readLong(),
+                snapshot.readInt(),
+                snapshot.readInt()
+        );
+    }
+
+    /**
+     * Writes the changes at the end of the current journal, without waiting for them to be durable.
+     *
+     * @param orderChanges The changes published at once.
+     * @return The position the store must be durable up to for the changes to be durable.
+     * @throws IOException if the changes could not be written.
+     * @see #awaitDurable(long)
+     */
+    public long append(List<OrderChange> orderChanges)
+            throws IOException {
+        this.appendLock.lock();
+        try {
+            return this.segment.base() + this.segment.orderJournal().append(orderChanges);
+        }
+        finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the store is durable up to the given position.
+     * A journal is forced before the next one is started, so positions before the current journal are durable
+     * already.
+     *
+     * @param position The position returned when appending.
+     * @throws IOException if the journal could not be forced.
+     */
+    public void awaitDurable(long position)
+            throws IOException {
+        var segment = this.segment;
+        if (segment.base() >= position) {
+            return;
+        }
+        segment.orderJournal().awaitDurable(position - segment.base());
+    }
+
+    @Override
+    public void close()
+            throws IOException {
+        // A snapshot being taken is let finish, since interrupting it would close the journal it is forcing
+        this.scheduler.shutdown();
+        this.snapshotLock.lock();
+        this.appendLock.lock();
+        try {
+            for (var finishedSegment : this.finishedSegments) {
+                finishedSegment.orderJournal().close();
+            }
+            this.segment.orderJournal().close();
+        }
+        finally {
+            this.appendLock.unlock();
+            this.snapshotLock.unlock();
+        }
+    }
+
+    private Segment createSegment(long epoch, long base)
+            throws IOException {
+        var path = this.directory.resolve(journalPrefix + epoch + journalSuffix);
+        return new Segment(epoch, base, new OrderJournal(path), path);
+    }
+
+    private Path getSnapshotPath() {
+        return this.directory.resolve(snapshotName);
+    }
+
+    /**
+     * Counts the snapshots taken since the store was opened.
+     *
+     * @return The number of snapshots.
+     */
+    public long getSnapshots() {
+        return this.snapshots.get();
+    }
+
+    /**
+     * Counts the times the journals were forced to the disk since the store was opened.
+     *
+     * @return The number of forces.
+     */
+    public long getSyncs() {
+        return this.finishedSyncs.get() + this.segment.orderJournal().getSyncs();
+    }
+
+    /**
+     * Reads the orders back, from the snapshot followed by every change in the journals.
+     *
+     * @return The orders as of the last change appended.
+     * @throws IOException if the snapshot or the journals could not be read.
+     */
+    public OrderSnapshot load()
+            throws IOException {
+        this.snapshotLock.lock();
+        try {
+            List<Segment> segments;
+            this.appendLock.lock();
+            try {
+                segments = new ArrayList<>(this.finishedSegments);
+                segments.add(this.segment);
+            }
+            finally {
+                this.appendLock.unlock();
+            }
+            var orderSnapshot = this.readSnapshot();
+            for (var segment : segments) {
+                segment.orderJournal().replay(orderSnapshot::apply);
+            }
+            return orderSnapshot;
+        }
+        finally {
+            this.snapshotLock.unlock();
+        }
+    }
+
+    private DataInputStream openSnapshot()
+            throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(this.getSnapshotPath()), 64 * 1024));
+    }
+
+    private OrderSnapshot readSnapshot()
+            throws IOException {
+        if (!Files.exists(this.getSnapshotPath())) {
+            return new OrderSnapshot();
+        }
+        try (var snapshot = this.openSnapshot()) {
+            var snapshotHeader = OrderStore.readSnapshotHeader(snapshot);
+            var input = new BinaryMessageInput(snapshot, snapshotHeader.protocolVersion());
+            HashMap<Integer, Order> orders = HashMap.newHashMap(snapshotHeader.numberOfOrders());
+            while (snapshotHeader.numberOfOrders() > orders.size()) {
+                if (!(input.read() instanceof Response response) ||
+                    ResponseType.SendOrders != response.getResponseType()) {
+                    throw new IOException("Registro inesperado no instantâneo de pedidos.");
+                }
+                orders.putAll(response.getOrders());
+            }
+            return new OrderSnapshot(orders, snapshotHeader.orderCounter(), snapshotHeader.version());
+        }
+    }
+
+    /**
+     * Takes a snapshot of the orders and deletes the journals it holds.
+     * Appending is only held back while the current journal is forced and the next one is started.
+     *
+     * @return False if nothing changed since the last snapshot.
+     * @throws IOException if the snapshot could not be written.
+     */
+    public boolean snapshot()
+            throws IOException {
+        this.snapshotLock.lock();
+        try {
+            List<Segment> segments;
+            long epoch;
+            this.appendLock.lock();
+            try {
+                var previous = this.segment;
+                if (this.finishedSegments.isEmpty() && previous.orderJournal().isEmpty()) {
+                    return false;
+                }
+                long end = previous.orderJournal().getPosition();
+                previous.orderJournal().awaitDurable(end);
+                this.segment = this.createSegment(previous.epoch() + 1, previous.base() + end);
+                this.finishedSegments.add(previous);
+                this.finishedSyncs.addAndGet(previous.orderJournal().getSyncs());
+                segments = new ArrayList<>(this.finishedSegments);
+                epoch = this.segment.epoch();
+            }
+            finally {
+                this.appendLock.unlock();
+            }
+
+            var orderSnapshot = this.readSnapshot();
+            for (var segment : segments) {
+                segment.orderJournal().replay(orderSnapshot::apply);
+            }
+            this.writeSnapshot(orderSnapshot, epoch);
+
+            this.appendLock.lock();
+            try {
+                this.finishedSegments.removeAll(segments);
+            }
+            finally {
+                this.appendLock.unlock();
+            }
+            for (var segment : segments) {
+                segment.orderJournal().close();
+                Files.delete(segment.path());
+            }
+            this.snapshots.incrementAndGet();
+            return true;
+        }
+        finally {
+            this.snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Starts taking snapshots periodically.
+     *
+     * @param intervalInSeconds The interval between two snapshots.
+     */
+    public void start(long intervalInSeconds) {
+        this.scheduler.scheduleAtFixedRate(
+                () -> {
+                    try {
+                        this.snapshot();
+                    }
+                    catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                },
+                intervalInSeconds,
+                intervalInSeconds,
+                TimeUnit.SECONDS
+                                          );
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, forces it and moves it over the previous snapshot.
+     * The orders are written as many messages, so none of them gets too large.
+     */
+    private void writeSnapshot(OrderSnapshot orderSnapshot, long epoch)
+            throws IOException {
+        var temporaryPath = this.directory.resolve(snapshotName + ".tmp");
+        int protocolVersion = MessageCodec.getCurrentVersion();
+        try (var channel = FileChannel.open(
+                temporaryPath,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+                                           )) {
+            var outputStream = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            var snapshot = new DataOutputStream(outputStream);
+            snapshot.write(magic);
+            snapshot.writeInt(protocolVersion);
+            snapshot.writeLong(epoch);
+            snapshot.writeLong(orderSnapshot.getVersion());
+            snapshot.writeInt(orderSnapshot.getOrderCounter());
+            snapshot.writeInt(orderSnapshot.getOrders().size());
+
+            var output = new BinaryMessageOutput(outputStream, protocolVersion);
+            var orders = new ConcurrentHashMap<Integer, Order>();
+            for (var entry : orderSnapshot.getOrders().entrySet()) {
+                orders.put(entry.getKey(), entry.getValue());
+                if (ordersPerFrame == orders.size()) {
+                    output.write(Response.sendOrders(orders, orderSnapshot.getVersion()));
+                    orders.clear();
+                }
+            }
+            if (!orders.isEmpty()) {
+                output.write(Response.sendOrders(orders, orderSnapshot.getVersion()));
+            }
+            snapshot.flush();
+            channel.force(true);
+        }
+        Files.move(
+                temporaryPath,
+                this.getSnapshotPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+                  );
+    }
+
+    private record Segment(long epoch, long base, OrderJournal orderJournal, Path path) {
+
+    }
+
+    private record SnapshotHeader(int protocolVersion, long epoch, long version, int orderCounter, int numberOfOrders) {
+
+    }
+
+}
@@ -44,6 +44,11 @@ public abstract class AppetizerDecorator
         return this.appetizer;
     }
 
+    @Override
+    public String getDecorationDescription() {
+        return this.description;
+    }
+
     @Override
     public String getDecorationName() {
         return this.name;
@@ -44,6 +44,11 @@ public abstract class BeverageDecorator
         return this.beverage;
     }
 
+    @Override
+    public String getDecorationDescription() {
+        return this.description;
+    }
+
     @Override
     public String getDecorationName() {
         return this.name;
@@ -17,6 +17,8 @@ public interface Decorator {
 
     MenuComponent getDecorated();
 
+    String getDecorationDescription();
+
     String getDecorationName();
 
 }
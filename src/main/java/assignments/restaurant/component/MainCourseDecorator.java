@@ -44,6 +44,11 @@ public abstract class MainCourseDecorator
         return this.mainCourse;
     }
 
+    @Override
+    public String getDecorationDescription() {
+        return this.description;
+    }
+
     @Override
     public String getDecorationName() {
         return this.name;
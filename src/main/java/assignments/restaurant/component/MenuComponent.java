@@ -18,6 +18,7 @@ public abstract class MenuComponent
     private static final long   serialVersionUID = 1L;
     protected            double cost             = 0.0d;
     protected            String description      = "";
+    protected            String id               = null;
     protected            String name             = "";
 
     public double getCost() {
@@ -36,6 +37,20 @@ public abstract class MenuComponent
         this.description = description;
     }
 
+    /**
+     * Gets the id of the menu record this component was created from.
+     * Decorators keep the id of their own record, not the one of the decorated component.
+     *
+     * @return The id, or null if the component was not created from a menu record.
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public String getName() {
         return this.name;
     }
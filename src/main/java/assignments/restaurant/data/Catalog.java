@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.data;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+
+/**
+ * An immutable, versioned snapshot of the menu component records, indexed so they can be found by id or by cuisine,
+ * category and whether they are decorators without scanning every record.
+ * <p>
+ * The fields of the records are kept in dense columns, in the order they were added, and every value of every
+ * restriction has a bitset of the positions of the records that match it. A query intersects the bitsets of its
+ * restrictions a word at a time, and the records are only built from the columns when the result is consumed.
+ * <p>
+ * Nothing changes after construction, so any number of threads may query a catalog without locking, and a new menu is
+ * published as a whole new catalog with a higher version. A catalog may also be derived from the previous one by
+ * applying only the records that changed: updated records keep their position, new ones are appended, and removed
+ * ones leave a hole that is left out of every query until there are more holes than records.
+ * <p>
+ * The words of the names and descriptions are indexed for search, and the records are sorted by cost, only the first
+ * time a query needs it, so a menu that is reloaded often does not pay for an index nobody reads. In the same way, the
+ * list of records that match each combination of restrictions is kept once it is first fetched, and a new menu starts
+ * with none of them, since it is a new catalog.
+ */
+public class Catalog {
+
+    private static final int                                             categoryKeys  = RestrictByCategory.values().length + 1;
+    private static final int                                             cuisineKeys   = RestrictByCuisine.values().length + 1;
+    private static final int                                             decoratorKeys = RestrictByDecorator.values().length + 1;
+    private final        Map<RestrictByCategory, BitSet>                 byCategory;
+    private final        Map<RestrictByCuisine, BitSet>                  byCuisine;
+    private final        Map<RestrictByDecorator, BitSet>                byDecorator;
+    private final        Map<String, Integer>                            byId;
+    private final        MenuColumns                                     columns;
+    private final        BitSet                                          live;
+    private final        int[]                                           livePositions;
+    private final        List<MenuComponentRecord>                       liveRecords;
+    private final        AtomicReferenceArray<List<MenuComponentRecord>> results;
+    private volatile     int[]                                           positionsByCost;
+    private volatile     SearchIndex                                     searchIndex;
+    private final        long                                            version;
+
+    /**
+     * Indexes the given records.
+     *
+     * @param version The version of the menu.
+     * @param records The records, in the order queries return them.
+     * @throws IllegalArgumentException if two records have the same id.
+     */
+    public Catalog(long version, List<MenuComponentRecord> records) {
+        this.version = version;
+        this.results = new AtomicReferenceArray<>(cuisineKeys * categoryKeys * decoratorKeys);
+        this.byCategory = new EnumMap<>(RestrictByCategory.class);
+        this.byCuisine = new EnumMap<>(RestrictByCuisine.class);
+        this.byDecorator = new EnumMap<>(RestrictByDecorator.class);
+        this.byId = new HashMap<>();
+        this.live = new BitSet(records.size());
+        this.columns = new MenuColumns(records.size());
+        for (var menuComponentRecord : records) {
+            if (this.byId.containsKey(menuComponentRecord.id())) {
+                throw new IllegalArgumentException("Identificador de componente de menu repetido: " + menuComponentRecord.id());
+            }
+            this.put(menuComponentRecord, this.columns.allocate());
+        }
+        this.livePositions = this.live.stream().toArray();
+        this.liveRecords = this.view(this.livePositions);
+    }
+
+    private Catalog(Catalog previous, Map<String, MenuComponentRecord> changes) {
+        this.version = previous.version + 1;
+        this.results = new AtomicReferenceArray<>(cuisineKeys * categoryKeys * decoratorKeys);
+        this.byCategory = Catalog.copy(previous.byCategory, new EnumMap<>(RestrictByCategory.class));
+        this.byCuisine = Catalog.copy(previous.byCuisine, new EnumMap<>(RestrictByCuisine.class));
+        this.byDecorator = Catalog.copy(previous.byDecorator, new EnumMap<>(RestrictByDecorator.class));
+        this.byId = new HashMap<>(previous.byId);
+        this.live = (BitSet) previous.live.clone();
+        this.columns = previous.columns.copy();
+        for (var change : changes.entrySet()) {
+            Integer position = this.byId.get(change.getKey());
+            if (null != position) {
+                this.remove(position);
+            }
+            if (null == change.getValue()) {
+                this.byId.remove(change.getKey());
+            }
+            else if (null == position) {
+                this.put(change.getValue(), this.columns.allocate());
+            }
+            else {
+                this.put(change.getValue(), position);
+            }
+        }
+        this.livePositions = this.live.stream().toArray();
+        this.liveRecords = this.view(this.livePositions);
+    }
+
+    private static <T> Map<T, BitSet> copy(Map<T, BitSet> source, Map<T, BitSet> target) {
+        for (var entry : source.entrySet()) {
+            target.put(entry.getKey(), (BitSet) entry.getValue().clone());
+        }
+        return target;
+    }
+
+    private static int key(Enum<?> restriction, int stride) {
+        return null == restriction ? 0 : (restriction.ordinal() + 1) * stride;
+    }
+
+    private static <T> void restrict(BitSet selection, Map<T, BitSet> bitsets, T value) {
+        if (null == value) {
+            return;
+        }
+        var bitset = bitsets.get(value);
+        if (null == bitset) {
+            selection.clear();
+        }
+        else {
+            selection.and(bitset);
+        }
+    }
+
+    private static <T> void set(Map<T, BitSet> bitsets, T value, int position, boolean isSet) {
+        bitsets.computeIfAbsent(value, key -> new BitSet()).set(position, isSet);
+    }
+
+    /**
+     * Derives the catalog of a new version of the menu, applying only the records that differ from this one.
+     *
+     * @param records Every record of the new menu.
+     * @return The derived catalog, or this one if no record changed.
+     * @throws IllegalArgumentException if two records have the same id.
+     */
+    public Catalog apply(List<MenuComponentRecord> records) {
+        Map<String, MenuComponentRecord> changes = new LinkedHashMap<>();
+        Map<String, MenuComponentRecord> incoming = new HashMap<>();
+        for (var menuComponentRecord : records) {
+            if (null != incoming.putIfAbsent(menuComponentRecord.id(), menuComponentRecord)) {
+                throw new IllegalArgumentException("Identificador de componente de menu repetido: " + menuComponentRecord.id());
+            }
+            Integer position = this.byId.get(menuComponentRecord.id());
+            if (null == position || !this.columns.matches(position, menuComponentRecord)) {
+                changes.put(menuComponentRecord.id(), menuComponentRecord);
+            }
+        }
+        for (int position : this.livePositions) {
+            if (!incoming.containsKey(this.columns.getId(position))) {
+                changes.put(this.columns.getId(position), null);
+            }
+        }
+
+        if (changes.isEmpty()) {
+            return this;
+        }
+        var catalog = new Catalog(this, changes);
+        // Once holes outnumber the records, a rebuild is cheaper than skipping them on every query
+        if (catalog.columns.size() > 2 * catalog.livePositions.length) {
+            return new Catalog(catalog.version, catalog.liveRecords);
+        }
+        return catalog;
+    }
+
+    /**
+     * Fetches the records that match every given restriction, where a null restriction matches every record.
+     *
+     * @param restrictByCuisine   The cuisine of the records.
+     * @param restrictByCategory  The category of the records.
+     * @param restrictByDecorator Whether the records are decorators.
+     * @return The matching records, in the order they were added, looked up as the stream is consumed.
+     */
+    public Stream<MenuComponentRecord> fetch(
+            RestrictByCuisine restrictByCuisine,
+            RestrictByCategory restrictByCategory,
+            RestrictByDecorator restrictByDecorator
+                                            ) {
+        var selection = this.select(restrictByCuisine, restrictByCategory, restrictByDecorator);
+        return selection.stream().mapToObj(this.columns::get);
+    }
+
+    /**
+     * Fetches the records that match every given restriction, where a null restriction matches every record, sharing
+     * the result with every other caller that asks for the same restrictions.
+     * There are only a few combinations of restrictions, so every one of them is kept for as long as the catalog.
+     *
+     * @param restrictByCuisine   The cuisine of the records.
+     * @param restrictByCategory  The category of the records.
+     * @param restrictByDecorator Whether the records are decorators.
+     * @return An unmodifiable list of the matching records, in the order they were added.
+     */
+    public List<MenuComponentRecord> fetchAll(
+            RestrictByCuisine restrictByCuisine,
+            RestrictByCategory restrictByCategory,
+            RestrictByDecorator restrictByDecorator
+                                             ) {
+        int key = Catalog.key(restrictByCuisine, categoryKeys * decoratorKeys) +
+                  Catalog.key(restrictByCategory, decoratorKeys) +
+                  Catalog.key(restrictByDecorator, 1);
+        var result = this.results.get(key);
+        if (null == result) {
+            // Two threads may both fetch the same restrictions, and either of the equal lists is kept
+            result = this.fetch(restrictByCuisine, restrictByCategory, restrictByDecorator).toList();
+            this.results.set(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Finds a record by its id.
+     *
+     * @param id The id of the record.
+     * @return The record, or null if there is none with that id.
+     */
+    public MenuComponentRecord findById(String id) {
+        Integer position = this.byId.get(id);
+        return null == position ? null : this.columns.get(position);
+    }
+
+    /**
+     * Gets every record, in the order queries return them.
+     *
+     * @return An unmodifiable list of the records.
+     */
+    public List<MenuComponentRecord> getRecords() {
+        return this.liveRecords;
+    }
+
+    /**
+     * Gets the cost of the record at a position, read from its column.
+     *
+     * @param position The position of the record.
+     * @return The cost, to the cent.
+     */
+    double getCost(int position) {
+        return this.columns.getCents(position) / 100.0;
+    }
+
+    /**
+     * Gets the positions of the records from the cheapest, and by position among equal costs.
+     * Like the search index, it is only built when first needed.
+     *
+     * @return The positions, which must not be modified.
+     */
+    int[] getPositionsByCost() {
+        var positionsByCost = this.positionsByCost;
+        if (null == positionsByCost) {
+            positionsByCost = this.live.stream()
+                                       .boxed()
+                                       .sorted(Comparator.comparingLong(this.columns::getCents))
+                                       .mapToInt(Integer::intValue)
+                                       .toArray();
+            this.positionsByCost = positionsByCost;
+        }
+        return positionsByCost;
+    }
+
+    MenuComponentRecord getRecord(int position) {
+        return this.columns.get(position);
+    }
+
+    private SearchIndex getSearchIndex() {
+        // Two threads may both build the index of a new catalog, and either of the equal indexes is kept
+        var searchIndex = this.searchIndex;
+        if (null == searchIndex) {
+            searchIndex = new SearchIndex(this.columns, this.live);
+            this.searchIndex = searchIndex;
+        }
+        return searchIndex;
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    private void put(MenuComponentRecord menuComponentRecord, int position) {
+        this.columns.set(position, menuComponentRecord);
+        this.byId.put(menuComponentRecord.id(), position);
+        this.live.set(position);
+        this.setIndexes(position, true);
+    }
+
+    private void remove(int position) {
+        this.setIndexes(position, false);
+        this.columns.clear(position);
+        this.live.clear(position);
+    }
+
+    /**
+     * Starts a query on this catalog, which can restrict the records by more than the fixed criteria of
+     * {@link #fetch(RestrictByCuisine, RestrictByCategory, RestrictByDecorator)}.
+     *
+     * @return A new query that matches every record.
+     */
+    public MenuQuery query() {
+        return new MenuQuery(this);
+    }
+
+    /**
+     * Searches the names and descriptions of the records for every word of a text, ignoring case and accents, where the
+     * last words may be incomplete.
+     *
+     * @param text  The text to search for.
+     * @param limit The maximum number of records to return.
+     * @return The matching records, from the best match.
+     * @see SearchIndex
+     */
+    public List<MenuComponentRecord> search(String text, int limit) {
+        var positions = this.getSearchIndex().search(text, limit);
+        List<MenuComponentRecord> menuComponentRecords = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            menuComponentRecords.add(this.columns.get(position));
+        }
+        return Collections.unmodifiableList(menuComponentRecords);
+    }
+
+    /**
+     * Selects the positions of the records with the given ids, skipping the unknown ones.
+     *
+     * @param ids The ids of the records.
+     * @return A new bitset with the positions of the records.
+     */
+    BitSet selectByIds(Collection<String> ids) {
+        var selection = new BitSet(this.columns.size());
+        for (var id : ids) {
+            Integer position = this.byId.get(id);
+            if (null != position) {
+                selection.set(position);
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * Selects the positions of the records whose names match every word of a text, ignoring case and accents, where
+     * each word may be the start of a longer one.
+     *
+     * @param text The text to match the names against.
+     * @return A new bitset with the positions of the records.
+     */
+    BitSet selectByName(String text) {
+        return this.getSearchIndex().selectByName(text);
+    }
+
+    /**
+     * Selects the positions of the records that match every given restriction.
+     *
+     * @param restrictByCuisine   The cuisine of the records.
+     * @param restrictByCategory  The category of the records.
+     * @param restrictByDecorator Whether the records are decorators.
+     * @return A new bitset with the positions of the matching records.
+     */
+    public BitSet select(
+            RestrictByCuisine restrictByCuisine,
+            RestrictByCategory restrictByCategory,
+            RestrictByDecorator restrictByDecorator
+                        ) {
+        var selection = (BitSet) this.live.clone();
+        Catalog.restrict(selection, this.byCuisine, restrictByCuisine);
+        Catalog.restrict(selection, this.byCategory, restrictByCategory);
+        Catalog.restrict(selection, this.byDecorator, restrictByDecorator);
+        return selection;
+    }
+
+    private void setIndexes(int position, boolean isSet) {
+        var category = RestrictByCategory.convertCategoryType(this.columns.getCategory(position));
+        var cuisine = RestrictByCuisine.convertCuisineType(this.columns.getCuisine(position));
+        var decorator = this.columns.isDecorator(position)
+                        ? RestrictByDecorator.IsDecorator
+                        : RestrictByDecorator.IsNotDecorator;
+        Catalog.set(this.byCategory, category, position, isSet);
+        Catalog.set(this.byCuisine, cuisine, position, isSet);
+        Catalog.set(this.byDecorator, decorator, position, isSet);
+    }
+
+    public int size() {
+        return this.livePositions.length;
+    }
+
+    /**
+     * Views the records at the given positions as a list, building each record only when it is read.
+     *
+     * @param positions The positions of the records.
+     * @return An unmodifiable list of the records.
+     */
+    private List<MenuComponentRecord> view(int[] positions) {
+        return new AbstractList<>() {
+
+            @Override
+            public MenuComponentRecord get(int index) {
+                return Catalog.this.columns.get(positions[index]);
+            }
+
+            @Override
+            public int size() {
+                return positions.length;
+            }
+
+        };
+    }
+
+}
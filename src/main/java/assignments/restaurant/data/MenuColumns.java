@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.data;
+
+import assignments.restaurant.component.CategoryType;
+import assignments.restaurant.cuisine.CuisineType;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The fields of the menu component records of a catalog, stored as one array per field instead of one object per
+ * record, so scanning a field reads a single array and needs no record at all.
+ * <p>
+ * Ids are interned, the category and cuisine are kept as the ordinals of their types, and the cost is kept in cents.
+ * Records are only built when they are handed out. A cleared position keeps no strings, and its other fields are left
+ * for the catalog to ignore.
+ */
+final class MenuColumns {
+
+    private static final CategoryType[] categoryTypes = CategoryType.values();
+    private static final CuisineType[]  cuisineTypes  = CuisineType.values();
+    private              byte[]         categories;
+    private              long[]         cents;
+    private              byte[]         cuisines;
+    private              String[]       descriptions;
+    private              String[]       ids;
+    private              boolean[]      isDecorators;
+    private              String[]       names;
+    private              int            size          = 0;
+
+    MenuColumns(int capacity) {
+        this.categories = new byte[capacity];
+        this.cents = new long[capacity];
+        this.cuisines = new byte[capacity];
+        this.descriptions = new String[capacity];
+        this.ids = new String[capacity];
+        this.isDecorators = new boolean[capacity];
+        this.names = new String[capacity];
+    }
+
+    private MenuColumns(MenuColumns columns) {
+        this.categories = columns.categories.clone();
+        this.cents = columns.cents.clone();
+        this.cuisines = columns.cuisines.clone();
+        this.descriptions = columns.descriptions.clone();
+        this.ids = columns.ids.clone();
+        this.isDecorators = columns.isDecorators.clone();
+        this.names = columns.names.clone();
+        this.size = columns.size;
+    }
+
+    /**
+     * Converts a cost to whole cents, which is how costs are stored and compared.
+     *
+     * @param cost The cost.
+     * @return The cost in cents.
+     */
+    static long toCents(double cost) {
+        return Math.round(cost * 100);
+    }
+
+    /**
+     * Adds a position after the last one, to be set.
+     *
+     * @return The new position.
+     */
+    int allocate() {
+        if (this.ids.length == this.size) {
+            int capacity = Math.max(8, 2 * this.size);
+            this.categories = Arrays.copyOf(this.categories, capacity);
+            this.cents = Arrays.copyOf(this.cents, capacity);
+            this.cuisines = Arrays.copyOf(this.cuisines, capacity);
+            this.descriptions = Arrays.copyOf(this.descriptions, capacity);
+            this.ids = Arrays.copyOf(this.ids, capacity);
+            this.isDecorators = Arrays.copyOf(this.isDecorators, capacity);
+            this.names = Arrays.copyOf(this.names, capacity);
+        }
+        return this.size++;
+    }
+
+    void clear(int position) {
+        this.descriptions[position] = null;
+        this.ids[position] = null;
+        this.names[position] = null;
+    }
+
+    MenuColumns copy() {
+        return new MenuColumns(this);
+    }
+
+    /**
+     * Builds the record at a position.
+     *
+     * @param position The position of the record.
+     * @return A new record with the fields at the position.
+     */
+    MenuComponentRecord get(int position) {
+        return new MenuComponentRecord(
+                this.ids[position],
+                categoryTypes[this.categories[position]],
+                cuisineTypes[this.cuisines[position]],
+                this.isDecorators[position],
+                this.names[position],
+                this.descriptions[position],
+                this.cents[position] / 100.0
+        );
+    }
+
+    CategoryType getCategory(int position) {
+        return categoryTypes[this.categories[position]];
+    }
+
+    long getCents(int position) {
+        return this.cents[position];
+    }
+
+    CuisineType getCuisine(int position) {
+        return cuisineTypes[this.cuisines[position]];
+    }
+
+    String getDescription(int position) {
+        return this.descriptions[position];
+    }
+
+    String getId(int position) {
+        return this.ids[position];
+    }
+
+    String getName(int position) {
+        return this.names[position];
+    }
+
+    boolean isDecorator(int position) {
+        return this.isDecorators[position];
+    }
+
+    /**
+     * Tells whether the record at a position has the same fields as the given one, without building it.
+     *
+     * @param position            The position of the record.
+     * @param menuComponentRecord The record to compare to.
+     * @return Whether both records are equal, with costs compared in cents.
+     */
+    boolean matches(int position, MenuComponentRecord menuComponentRecord) {
+        return menuComponentRecord.id().equals(this.ids[position]) &&
+               menuComponentRecord.category().ordinal() == this.categories[position] &&
+               menuComponentRecord.cuisine().ordinal() == this.cuisines[position] &&
+               menuComponentRecord.isDecorator() == this.isDecorators[position] &&
+               Objects.equals(menuComponentRecord.name(), this.names[position]) &&
+               Objects.equals(menuComponentRecord.description(), this.descriptions[position]) &&
+               MenuColumns.toCents(menuComponentRecord.cost()) == this.cents[position];
+    }
+
+    void set(int position, MenuComponentRecord menuComponentRecord) {
+        this.categories[position] = (byte) menuComponentRecord.category().ordinal();
+        this.cents[position] = MenuColumns.toCents(menuComponentRecord.cost());
+        this.cuisines[position] = (byte) menuComponentRecord.cuisine().ordinal();
+        this.descriptions[position] = menuComponentRecord.description();
+        this.ids[position] = menuComponentRecord.id().intern();
+        this.isDecorators[position] = menuComponentRecord.isDecorator();
+        this.names[position] = menuComponentRecord.name();
+    }
+
+    /**
+     * Counts the positions, including the cleared ones.
+     *
+     * @return The number of positions.
+     */
+    int size() {
+        return this.size;
+    }
+
+}
@@ -9,9 +9,15 @@ package assignments.restaurant.data;
 import assignments.restaurant.component.CategoryType;
 import assignments.restaurant.cuisine.CuisineType;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 public record MenuComponentRecord(
         String id, CategoryType category, CuisineType cuisine, boolean isDecorator, String name, String description,
         double cost
-) {
+) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
 
 }
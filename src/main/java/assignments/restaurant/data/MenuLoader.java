@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.data;
+
+import assignments.restaurant.component.CategoryType;
+import assignments.restaurant.cuisine.CuisineType;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Loads the menu component records from a file, so the menu can change without rebuilding the application.
+ * <p>
+ * Two formats are supported. The CSV format has a header line followed by one record per line, with the fields id,
+ * category, cuisine, isDecorator, name, description and cost; fields holding commas are quoted, and quotes inside them
+ * are doubled. The binary format is a compact form meant for large catalogs, which is memory-mapped and read in a
+ * single pass: the magic number "MENU", the version, the number of records and then every record, with its strings
+ * as an unsigned short length followed by UTF-8 bytes, its enums as the ordinal in a byte and its cost in cents.
+ * <p>
+ * Files ending in ".bin" are read as binary, and every other file as CSV.
+ */
+public final class MenuLoader {
+
+    private static final byte[] magic          = {'M', 'E', 'N', 'U'};
+    private static final String binarySuffix   = ".bin";
+    private static final int    binaryVersion  = 1;
+    private static final String csvHeader      = "id,category,cuisine,isDecorator,name,description,cost";
+    private static final int    numberOfFields = 7;
+
+    private MenuLoader() {
+        throw new IllegalStateException("This is a utility class!");
+    }
+
+    /**
+     * Loads the records from a file, choosing the format by its name.
+     *
+     * @param path The file to load.
+     * @return The records, in the order of the file.
+     * @throws IOException if the file could not be read or is malformed.
+     */
+    public static List<MenuComponentRecord> load(Path path)
+            throws IOException {
+        if (path.getFileName().toString().endsWith(binarySuffix)) {
+            return MenuLoader.loadBinary(path);
+        }
+        try (var inputStream = Files.newInputStream(path)) {
+            return MenuLoader.loadCsv(inputStream);
+        }
+    }
+
+    /**
+     * Loads the records of a menu in the binary format by memory-mapping the file.
+     *
+     * @param path The file to load.
+     * @return The records, in the order of the file.
+     * @throws IOException if the file could not be read or is malformed.
+     */
+    public static List<MenuComponentRecord> loadBinary(Path path)
+            throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return MenuLoader.readBinary(buffer);
+        }
+        catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Cardápio binário inválido: " + path, e);
+        }
+    }
+
+    /**
+     * Loads the records of a menu in the CSV format.
+     *
+     * @param inputStream The stream to read, in UTF-8.
+     * @return The records, in the order of the stream.
+     * @throws IOException if the stream could not be read or is malformed.
+     */
+    public static List<MenuComponentRecord> loadCsv(InputStream inputStream)
+            throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        var header = reader.readLine();
+        if (!csvHeader.equals(null == header ? null : header.strip())) {
+            throw new IOException("Cabeçalho do cardápio inválido: " + header);
+        }
+
+        List<MenuComponentRecord> records = new ArrayList<>();
+        String line;
+        int lineNumber = 1;
+        while (null != (line = reader.readLine())) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                records.add(MenuLoader.parseCsvRecord(MenuLoader.splitCsvLine(line)));
+            }
+            catch (IllegalArgumentException e) {
+                throw new IOException("Linha " + lineNumber + " do cardápio inválida: " + e.getMessage(), e);
+            }
+        }
+        return records;
+    }
+
+    private static MenuComponentRecord parseCsvRecord(List<String> fields) {
+        if (numberOfFields != fields.size()) {
+            throw new IllegalArgumentException("esperados " + numberOfFields + " campos, mas há " + fields.size());
+        }
+        if (!"true".equals(fields.get(3)) && !"false".equals(fields.get(3))) {
+            throw new IllegalArgumentException("isDecorator deve ser true ou false");
+        }
+        return new MenuComponentRecord(
+                fields.get(0),
+                CategoryType.valueOf(fields.get(1)),
+                CuisineType.valueOf(fields.get(2)),
+                Boolean.parseBoolean(fields.get(3)),
+                fields.get(4),
+                fields.get(5),
+                Double.parseDouble(fields.get(6))
+        );
+    }
+
+    private static <T extends Enum<T>> T readEnum(ByteBuffer buffer, T[] values) {
+        int ordinal = Byte.toUnsignedInt(buffer.get());
+        if (values.length <= ordinal) {
+            throw new IllegalArgumentException("Valor desconhecido: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static List<MenuComponentRecord> readBinary(ByteBuffer buffer)
+            throws IOException {
+        var fileMagic = new byte[magic.length];
+        buffer.get(fileMagic);
+        if (!Arrays.equals(magic, fileMagic) || binaryVersion != buffer.getInt()) {
+            throw new IOException("Formato de cardápio desconhecido");
+        }
+
+        int size = buffer.getInt();
+        List<MenuComponentRecord> records = new ArrayList<>(size);
+        for (
+                int i = 0;
+                i < size;
+                i++
+        ) {
+            records.add(new MenuComponentRecord(
+                    MenuLoader.readString(buffer),
+                    MenuLoader.readEnum(buffer, CategoryType.values()),
+                    MenuLoader.readEnum(buffer, CuisineType.values()),
+                    0 != buffer.get(),
+                    MenuLoader.readString(buffer),
+                    MenuLoader.readString(buffer),
+                    buffer.getLong() / 100.0d
+            ));
+        }
+        return records;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(numberOfFields);
+        var field = new StringBuilder();
+        boolean quoted = false;
+        for (
+                int i = 0;
+                i < line.length();
+                i++
+        ) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if ('"' != c) {
+                    field.append(c);
+                }
+                else if (i + 1 < line.length() && '"' == line.charAt(i + 1)) {
+                    field.append('"');
+                    i++;
+                }
+                else {
+                    quoted = false;
+                }
+            }
+            else if ('"' == c) {
+                quoted = true;
+            }
+            else if (',' == c) {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("aspas não fechadas");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Writes records in the binary format, such as when converting a CSV menu for a large catalog.
+     *
+     * @param records The records to write.
+     * @param path    The file to write.
+     * @throws IOException if the file could not be written.
+     */
+    public static void writeBinary(List<MenuComponentRecord> records, Path path)
+            throws IOException {
+        try (var outputStream = new DataOutputStream(Files.newOutputStream(path))) {
+            outputStream.write(magic);
+            outputStream.writeInt(binaryVersion);
+            outputStream.writeInt(records.size());
+            for (var record : records) {
+                MenuLoader.writeString(outputStream, record.id());
+                outputStream.writeByte(record.category().ordinal());
+                outputStream.writeByte(record.cuisine().ordinal());
+                outputStream.writeBoolean(record.isDecorator());
+                MenuLoader.writeString(outputStream, record.name());
+                MenuLoader.writeString(outputStream, record.description());
+                outputStream.writeLong(Math.round(record.cost() * 100));
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream outputStream, String value)
+            throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (0xFFFF < bytes.length) {
+            throw new IOException("Texto longo demais para o cardápio binário: " + value.substring(0, 32) + "...");
+        }
+        outputStream.writeShort(bytes.length);
+        outputStream.write(bytes);
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.data;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/*
+ * Design Pattern: Builder
+ *
+ * This class is part of the Builder design pattern.
+ * It builds a query on a catalog one restriction at a time, and only runs it when the results are asked for.
+ */
+
+/**
+ * A query on a catalog, restricting its records by any combination of cuisine, category, decorator, cost, ids and
+ * name, optionally sorted by cost and paged.
+ * <p>
+ * The restrictions that have an index are resolved first, by intersecting the bitsets of the catalog with the records
+ * that have the given ids and the names that match the given words. The cost range is checked on the cost column of
+ * the remaining records, or, when sorting by cost, the records are walked in the order of cost from the cheapest in
+ * the range and the walk stops at the first one above it. The results are streamed, so a page of a large catalog only
+ * looks up the records up to its end. The restrictions are read when the stream is built, so changing the query
+ * afterwards does not change a stream already returned.
+ */
+public class MenuQuery {
+
+    private final Catalog             catalog;
+    private       Set<String>         ids                 = null;
+    private       boolean             isSortedByCost      = false;
+    private       long                limit               = Long.MAX_VALUE;
+    private       double              maximumCost         = Double.POSITIVE_INFINITY;
+    private       double              minimumCost         = Double.NEGATIVE_INFINITY;
+    private       String              name                = null;
+    private       long                offset              = 0;
+    private       RestrictByCategory  restrictByCategory  = null;
+    private       RestrictByCuisine   restrictByCuisine   = null;
+    private       RestrictByDecorator restrictByDecorator = null;
+
+    MenuQuery(Catalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Fetches the records that match the query.
+     *
+     * @return An unmodifiable list of the matching records.
+     */
+    public List<MenuComponentRecord> fetch() {
+        return this.stream().toList();
+    }
+
+    /**
+     * Returns at most the given number of records, to fetch a single page.
+     *
+     * @param limit The maximum number of records to return.
+     * @return This query.
+     * @throws IllegalArgumentException if the limit is negative.
+     */
+    public MenuQuery limit(long limit) {
+        if (0 > limit) {
+            throw new IllegalArgumentException("O limite não pode ser negativo!");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Skips the first matching records, to fetch a later page.
+     *
+     * @param offset The number of records to skip.
+     * @return This query.
+     * @throws IllegalArgumentException if the offset is negative.
+     */
+    public MenuQuery offset(long offset) {
+        if (0 > offset) {
+            throw new IllegalArgumentException("O deslocamento não pode ser negativo!");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    public MenuQuery restrictByCategory(RestrictByCategory restrictByCategory) {
+        this.restrictByCategory = restrictByCategory;
+        return this;
+    }
+
+    /**
+     * Restricts the records to the ones that cost between the given values, inclusive.
+     *
+     * @param minimumCost The lowest cost.
+     * @param maximumCost The highest cost.
+     * @return This query.
+     * @throws IllegalArgumentException if the lowest cost is greater than the highest.
+     */
+    public MenuQuery restrictByCost(double minimumCost, double maximumCost) {
+        if (minimumCost > maximumCost) {
+            throw new IllegalArgumentException("O custo mínimo não pode ser maior do que o máximo!");
+        }
+        this.minimumCost = minimumCost;
+        this.maximumCost = maximumCost;
+        return this;
+    }
+
+    public MenuQuery restrictByCuisine(RestrictByCuisine restrictByCuisine) {
+        this.restrictByCuisine = restrictByCuisine;
+        return this;
+    }
+
+    public MenuQuery restrictByDecorator(RestrictByDecorator restrictByDecorator) {
+        this.restrictByDecorator = restrictByDecorator;
+        return this;
+    }
+
+    /**
+     * Restricts the records to the ones with the given ids.
+     *
+     * @param ids The ids of the records, where unknown ones are ignored.
+     * @return This query.
+     */
+    public MenuQuery restrictByIds(Collection<String> ids) {
+        this.ids = Set.copyOf(ids);
+        return this;
+    }
+
+    /**
+     * Restricts the records to the ones whose names have, for every word of the text, a word starting with it,
+     * ignoring case and accents.
+     *
+     * @param name The text to match the names against, where a blank one matches every name.
+     * @return This query.
+     */
+    public MenuQuery restrictByName(String name) {
+        this.name = null == name || name.isBlank() ? null : name;
+        return this;
+    }
+
+    /**
+     * Sorts the records from the cheapest, and by the order they were added among equal costs.
+     *
+     * @return This query.
+     */
+    public MenuQuery sortByCost() {
+        this.isSortedByCost = true;
+        return this;
+    }
+
+    /**
+     * Runs the query.
+     *
+     * @return The matching records, looked up as the stream is consumed.
+     */
+    public Stream<MenuComponentRecord> stream() {
+        // The stream is lazy, so it must not read the restrictions of the query while it is consumed
+        double minimumCost = this.minimumCost;
+        double maximumCost = this.maximumCost;
+        var selection = this.catalog.select(this.restrictByCuisine, this.restrictByCategory, this.restrictByDecorator);
+        if (null != this.ids) {
+            selection.and(this.catalog.selectByIds(this.ids));
+        }
+        if (null != this.name && !selection.isEmpty()) {
+            selection.and(this.catalog.selectByName(this.name));
+        }
+
+        IntStream positions;
+        if (this.isSortedByCost) {
+            var positionsByCost = this.catalog.getPositionsByCost();
+            positions = IntStream.range(this.findFirstByCost(positionsByCost, minimumCost), positionsByCost.length)
+                                 .map(i -> positionsByCost[i])
+                                 .takeWhile(position -> this.catalog.getCost(position) <= maximumCost)
+                                 .filter(selection::get);
+        }
+        else {
+            positions = selection.stream().filter(position -> this.isWithinCost(position, minimumCost, maximumCost));
+        }
+        return positions.skip(this.offset).limit(this.limit).mapToObj(this.catalog::getRecord);
+    }
+
+    private int findFirstByCost(int[] positionsByCost, double minimumCost) {
+        int low = 0;
+        int high = positionsByCost.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.catalog.getCost(positionsByCost[middle]) < minimumCost) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean isWithinCost(int position, double minimumCost, double maximumCost) {
+        double cost = this.catalog.getCost(position);
+        return minimumCost <= cost && cost <= maximumCost;
+    }
+
+}
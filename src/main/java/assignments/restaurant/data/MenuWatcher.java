@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.data;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.util.function.Consumer;
+
+/**
+ * Watches a menu file and applies it to the menu of {@link Data} whenever it is written.
+ * <p>
+ * The directory of the file is watched, since a file replaced by a move is no longer the one being watched, and only
+ * the events of the file itself are considered. Only the records that changed are applied to the current catalog, and
+ * the listener is only told about a new catalog when at least one of them did. A malformed file is reported and
+ * ignored, so the menu being served is kept until the file is fixed.
+ */
+public class MenuWatcher
+        implements AutoCloseable {
+
+    private final Consumer<Catalog> listener;
+    private final Path              path;
+    private final PrintStream       printStream;
+    private final Thread            thread;
+    private final WatchService      watchService;
+
+    public MenuWatcher(Path path, Consumer<Catalog> listener, PrintStream printStream)
+            throws IOException {
+        this.path = path.toAbsolutePath();
+        this.listener = listener;
+        this.printStream = printStream;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.path.getParent().register(
+                this.watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY
+                                      );
+        this.thread = Thread.ofPlatform().name("menu-watcher").daemon(true).unstarted(this::watch);
+    }
+
+    @Override
+    public void close()
+            throws IOException {
+        this.watchService.close();
+    }
+
+    /**
+     * Loads the file and tells the listener if the menu changed.
+     *
+     * @return The current catalog.
+     * @throws IOException if the file could not be read or is malformed.
+     */
+    public Catalog reload()
+            throws IOException {
+        var data = Data.getInstance();
+        var previous = data.getCatalog();
+        var catalog = data.load(this.path);
+        if (previous != catalog) {
+            this.listener.accept(catalog);
+        }
+        return catalog;
+    }
+
+    public void start() {
+        this.thread.start();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                var watchKey = this.watchService.take();
+                boolean isChanged = false;
+                for (var watchEvent : watchKey.pollEvents()) {
+                    if (StandardWatchEventKinds.OVERFLOW == watchEvent.kind() ||
+                        this.path.getFileName().equals(watchEvent.context())) {
+                        isChanged = true;
+                    }
+                }
+                if (isChanged) {
+                    try {
+                        this.reload();
+                    }
+                    catch (IOException e) {
+                        this.printStream.println("Não foi possível recarregar o cardápio: " + e.getMessage());
+                    }
+                }
+                if (!watchKey.reset()) {
+                    this.printStream.println("O diretório do cardápio não pode mais ser observado.");
+                    return;
+                }
+            }
+        }
+        catch (ClosedWatchServiceException e) {
+            // The watcher was closed
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
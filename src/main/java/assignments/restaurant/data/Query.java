@@ -6,9 +6,13 @@
 
 package assignments.restaurant.data;
 
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.List;
 
+/**
+ * Queries the current menu.
+ * Every query reads the current catalog once and works on that snapshot, so it never blocks nor sees a menu that is
+ * being published.
+ */
 public class Query {
 
     private static final Data data = Data.getInstance();
@@ -17,175 +21,59 @@ public class Query {
         throw new IllegalStateException("This is a utility class!");
     }
 
-    private static CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>> and(
-            CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>> first,
-            CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>> second
-                                                                                      ) {
-        var result = new CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>>();
-        for (var list : first) {
-            if (second.contains(list)) {
-                result.add(list);
-            }
-        }
-        return result;
-    }
-
-    public static CopyOnWriteArrayList<MenuComponentRecord> fetchAllMenuComponents(
+    /**
+     * Fetches the menu components that match every given restriction, where a null restriction matches every one.
+     * The result is shared by every caller until the menu changes, so it must not be modified.
+     *
+     * @param restrictByCuisine   The cuisine of the menu components.
+     * @param restrictByCategory  The category of the menu components.
+     * @param restrictByDecorator Whether the menu components are decorators.
+     * @return An unmodifiable list of the matching menu components.
+     */
+    public static List<MenuComponentRecord> fetchAllMenuComponents(
             RestrictByCuisine restrictByCuisine,
             RestrictByCategory restrictByCategory,
             RestrictByDecorator restrictByDecorator
-                                                                                  ) {
-        var lists = new CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>>();
-
-        lists = and(
-                and(restrictByCuisine(restrictByCuisine), restrictByCategory(restrictByCategory)),
-                restrictByDecorator(restrictByDecorator)
-                   );
-
-        return lists.stream()
-                    .flatMap(CopyOnWriteArrayList::stream)
-                    .collect(Collectors.toCollection(CopyOnWriteArrayList::new));
+                                                                  ) {
+        return data.getCatalog().fetchAll(restrictByCuisine, restrictByCategory, restrictByDecorator);
     }
 
-    public static CopyOnWriteArrayList<MenuComponentRecord> fetchMenuComponentById(
+    public static List<MenuComponentRecord> fetchMenuComponentById(
             String restrictById
-                                                                                  ) {
-        var lists = new CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>>();
-
-        if (null != restrictById && !restrictById.isBlank()) {
-            lists = restrictById(restrictById);
-        }
-
-        return lists.stream()
-                    .flatMap(CopyOnWriteArrayList::stream)
-                    .collect(Collectors.toCollection(CopyOnWriteArrayList::new));
-    }
-
-    public static CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>> restrictById(String id) {
-        var result = new CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>>();
-        for (var list : returnAllLists()) {
-            for (var record : list) {
-                if (record.id().equals(id)) {
-                    result.add(list);
-                }
-            }
+                                                                  ) {
+        if (null == restrictById || restrictById.isBlank()) {
+            return List.of();
         }
-        return result;
-    }
-
-    private static CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>> returnAllLists() {
-        var result = new CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>>();
-        returnAllBrazilianCuisineMenuComponents(result);
-        returnAllItalianCuisineMenuComponents(result);
-        return result;
-    }
-
-    private static void returnAllBrazilianCuisineMenuComponents(CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>> result) {
-        result.add(data.getBrazilianCuisineAppetizers());
-        result.add(data.getBrazilianCuisineAppetizersDecorators());
-        result.add(data.getBrazilianCuisineBeverages());
-        result.add(data.getBrazilianCuisineBeveragesDecorators());
-        result.add(data.getBrazilianCuisineDesserts());
-        result.add(data.getBrazilianCuisineDessertsDecorators());
-        result.add(data.getBrazilianCuisineMainCourses());
-        result.add(data.getBrazilianCuisineMainCoursesDecorators());
-    }
 
-    private static void returnAllItalianCuisineMenuComponents(CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>> result) {
-        result.add(data.getItalianCuisineAppetizers());
-        result.add(data.getItalianCuisineAppetizersDecorators());
-        result.add(data.getItalianCuisineBeverages());
-        result.add(data.getItalianCuisineBeveragesDecorators());
-        result.add(data.getItalianCuisineDesserts());
-        result.add(data.getItalianCuisineDessertsDecorators());
-        result.add(data.getItalianCuisineMainCourses());
-        result.add(data.getItalianCuisineMainCoursesDecorators());
+        var menuComponentRecord = data.getCatalog().findById(restrictById);
+        return null == menuComponentRecord ? List.of() : List.of(menuComponentRecord);
     }
 
-    private static CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>> restrictByCategory(
-            RestrictByCategory restrictByCategory
-                                                                                                     ) {
-        var result = new CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>>();
-        switch (restrictByCategory) {
-            case Appetizer -> {
-                result.add(data.getBrazilianCuisineAppetizers());
-                result.add(data.getBrazilianCuisineAppetizersDecorators());
-                result.add(data.getItalianCuisineAppetizers());
-                result.add(data.getItalianCuisineAppetizersDecorators());
-            }
-            case Beverage -> {
-                result.add(data.getBrazilianCuisineBeverages());
-                result.add(data.getBrazilianCuisineBeveragesDecorators());
-                result.add(data.getItalianCuisineBeverages());
-                result.add(data.getItalianCuisineBeveragesDecorators());
-            }
-            case Dessert -> {
-                result.add(data.getBrazilianCuisineDesserts());
-                result.add(data.getBrazilianCuisineDessertsDecorators());
-                result.add(data.getItalianCuisineDesserts());
-                result.add(data.getItalianCuisineDessertsDecorators());
-            }
-            case MainCourse -> {
-                result.add(data.getBrazilianCuisineMainCourses());
-                result.add(data.getBrazilianCuisineMainCoursesDecorators());
-                result.add(data.getItalianCuisineMainCourses());
-                result.add(data.getItalianCuisineMainCoursesDecorators());
-            }
-            case null -> {
-                result.addAll(returnAllLists());
-            }
-        }
-        return result;
+    /**
+     * Starts a query on the current menu, for restrictions the other queries do not cover, such as cost and name, or for
+     * sorting and paging the results.
+     * The query keeps the menu it started on, even if a new one is published before it runs.
+     *
+     * @return A new query that matches every menu component.
+     */
+    public static MenuQuery query() {
+        return data.getCatalog().query();
     }
 
-    private static CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>> restrictByCuisine(
-            RestrictByCuisine restrictByCuisine
-                                                                                                    ) {
-        var result = new CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>>();
-        switch (restrictByCuisine) {
-            case Brazilian -> {
-                returnAllBrazilianCuisineMenuComponents(result);
-            }
-            case Italian -> {
-                returnAllItalianCuisineMenuComponents(result);
-            }
-            case null -> {
-                result.addAll(returnAllLists());
-            }
+    /**
+     * Searches the menu as the text is typed, matching every word of it against the start of the words in the names
+     * and descriptions, regardless of case and accents.
+     *
+     * @param text  The text typed so far.
+     * @param limit The maximum number of menu components to return.
+     * @return The matching menu components, ranked from the best match.
+     */
+    public static List<MenuComponentRecord> searchMenuComponents(String text, int limit) {
+        if (null == text || text.isBlank()) {
+            return List.of();
         }
-        return result;
-    }
 
-    private static CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>> restrictByDecorator(
-            RestrictByDecorator restrictByDecorator
-                                                                                                      ) {
-        var result = new CopyOnWriteArrayList<CopyOnWriteArrayList<MenuComponentRecord>>();
-        switch (restrictByDecorator) {
-            case IsDecorator -> {
-                result.add(data.getBrazilianCuisineAppetizersDecorators());
-                result.add(data.getBrazilianCuisineBeveragesDecorators());
-                result.add(data.getBrazilianCuisineDessertsDecorators());
-                result.add(data.getBrazilianCuisineMainCoursesDecorators());
-                result.add(data.getItalianCuisineAppetizersDecorators());
-                result.add(data.getItalianCuisineBeveragesDecorators());
-                result.add(data.getItalianCuisineDessertsDecorators());
-                result.add(data.getItalianCuisineMainCoursesDecorators());
-            }
-            case IsNotDecorator -> {
-                result.add(data.getBrazilianCuisineAppetizers());
-                result.add(data.getBrazilianCuisineBeverages());
-                result.add(data.getBrazilianCuisineDesserts());
-                result.add(data.getBrazilianCuisineMainCourses());
-                result.add(data.getItalianCuisineAppetizers());
-                result.add(data.getItalianCuisineBeverages());
-                result.add(data.getItalianCuisineDesserts());
-                result.add(data.getItalianCuisineMainCourses());
-            }
-            case null -> {
-                result.addAll(returnAllLists());
-            }
-        }
-        return result;
+        return data.getCatalog().search(text, limit);
     }
 
-}
\ No newline at end of file
+}
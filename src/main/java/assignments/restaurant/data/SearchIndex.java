@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.data;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * An inverted index of the words in the names and descriptions of the records of a catalog, for type-ahead search.
+ * <p>
+ * Words are folded to lower case without accents, so "mucarela" finds "Muçarela". The distinct words are kept sorted,
+ * so every word starting with a prefix is found by binary search as a contiguous range, and each word has the sorted
+ * positions of the records that contain it, tagged with whether it was found in the name, the description or both.
+ * <p>
+ * A search matches the records that have, for every word of the text, some word starting with it. They are ranked by
+ * where the words were found, with whole words ranking above prefixes and names above descriptions.
+ */
+final class SearchIndex {
+
+    private static final int      descriptionField = 1;
+    private static final int      descriptionScore = 1;
+    private static final int      exactScore       = 2;
+    private static final int      fieldBits        = 2;
+    private static final Pattern  marks            = Pattern.compile("\\p{M}+");
+    private static final int      maximumScore     = 0xFF;
+    private static final int      nameField        = 2;
+    private static final int      nameScore        = 4;
+    private static final Pattern  separators       = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private final        int[][]  postings;
+    private final        String[] terms;
+
+    /**
+     * Indexes the words of the given records.
+     *
+     * @param columns The fields of the records.
+     * @param live    The positions of the records to index.
+     */
+    SearchIndex(MenuColumns columns, BitSet live) {
+        Map<String, Postings> postingsByTerm = new HashMap<>();
+        Map<String, Integer> fieldsByTerm = new HashMap<>();
+        for (
+                int position = live.nextSetBit(0);
+                0 <= position;
+                position = live.nextSetBit(position + 1)
+        ) {
+            fieldsByTerm.clear();
+            for (var term : SearchIndex.tokenize(columns.getName(position))) {
+                fieldsByTerm.merge(term, nameField, (fields, field) -> fields | field);
+            }
+            for (var term : SearchIndex.tokenize(columns.getDescription(position))) {
+                fieldsByTerm.merge(term, descriptionField, (fields, field) -> fields | field);
+            }
+            for (var entry : fieldsByTerm.entrySet()) {
+                postingsByTerm.computeIfAbsent(entry.getKey(), term -> new Postings())
+                              .add(position << fieldBits | entry.getValue());
+            }
+        }
+
+        this.terms = postingsByTerm.keySet().toArray(String[]::new);
+        Arrays.sort(this.terms);
+        this.postings = new int[this.terms.length][];
+        for (
+                int i = 0;
+                i < this.terms.length;
+                i++
+        ) {
+            this.postings[i] = postingsByTerm.get(this.terms[i]).toArray();
+        }
+    }
+
+    /**
+     * Folds a text to lower case without accents.
+     *
+     * @param text The text to fold.
+     * @return The folded text.
+     */
+    static String normalize(String text) {
+        var decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return marks.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static int score(int fields, boolean isExact) {
+        int score = 0;
+        if (0 != (fields & nameField)) {
+            score += nameScore;
+        }
+        if (0 != (fields & descriptionField)) {
+            score += descriptionScore;
+        }
+        return isExact ? score + exactScore : score;
+    }
+
+    /**
+     * Splits a text into folded words.
+     *
+     * @param text The text to split.
+     * @return The words, in the order they appear.
+     */
+    static String[] tokenize(String text) {
+        if (null == text) {
+            return new String[0];
+        }
+        return Arrays.stream(separators.split(SearchIndex.normalize(text)))
+                     .filter(term -> !term.isEmpty())
+                     .toArray(String[]::new);
+    }
+
+    private int firstTermAtLeast(String prefix) {
+        int low = 0;
+        int high = this.terms.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (0 > this.terms[middle].compareTo(prefix)) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the records that match the given text, ranked from the best match.
+     *
+     * @param text  The text to search for.
+     * @param limit The maximum number of positions to return.
+     * @return The positions of the matching records, from the best match, and by position among equal matches.
+     */
+    int[] search(String text, int limit) {
+        var words = SearchIndex.tokenize(text);
+        if (0 == words.length || 0 >= limit) {
+            return new int[0];
+        }
+
+        // Each hit is kept as its position followed by its score, so sorting them groups them by record
+        long[] hits = null;
+        for (var word : words) {
+            var wordHits = this.searchWord(word);
+            hits = null == hits ? wordHits : SearchIndex.intersect(hits, wordHits);
+            if (0 == hits.length) {
+                return new int[0];
+            }
+        }
+
+        long[] ranked = new long[hits.length];
+        for (
+                int i = 0;
+                i < hits.length;
+                i++
+        ) {
+            long score = Math.min(maximumScore, hits[i] & 0xFFFFFFFFL);
+            ranked[i] = (maximumScore - score) << Integer.SIZE | hits[i] >>> Integer.SIZE;
+        }
+        Arrays.sort(ranked);
+        int[] positions = new int[Math.min(limit, ranked.length)];
+        for (
+                int i = 0;
+                i < positions.length;
+                i++
+        ) {
+            positions[i] = (int) ranked[i];
+        }
+        return positions;
+    }
+
+    private static long[] intersect(long[] hits, long[] wordHits) {
+        long[] intersection = new long[Math.min(hits.length, wordHits.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < hits.length && j < wordHits.length) {
+            long position = hits[i] >>> Integer.SIZE;
+            long wordPosition = wordHits[j] >>> Integer.SIZE;
+            if (position < wordPosition) {
+                i++;
+            }
+            else if (position > wordPosition) {
+                j++;
+            }
+            else {
+                intersection[size++] = hits[i++] + (wordHits[j++] & 0xFFFFFFFFL);
+            }
+        }
+        return Arrays.copyOf(intersection, size);
+    }
+
+    /**
+     * Selects the records whose names have, for every word of the text, some word starting with it.
+     *
+     * @param text The text to match the names against.
+     * @return A new bitset with the positions of the matching records.
+     */
+    BitSet selectByName(String text) {
+        BitSet selection = null;
+        for (var word : SearchIndex.tokenize(text)) {
+            var wordSelection = new BitSet();
+            for (
+                    int i = this.firstTermAtLeast(word);
+                    i < this.terms.length && this.terms[i].startsWith(word);
+                    i++
+            ) {
+                for (int posting : this.postings[i]) {
+                    if (0 != (posting & nameField)) {
+                        wordSelection.set(posting >>> fieldBits);
+                    }
+                }
+            }
+            if (null == selection) {
+                selection = wordSelection;
+            }
+            else {
+                selection.and(wordSelection);
+            }
+        }
+        return null == selection ? new BitSet() : selection;
+    }
+
+    /**
+     * Finds the records that have a word starting with the given one, with the best score of each.
+     *
+     * @param word The folded word.
+     * @return The hits, sorted by position, with a single hit per record.
+     */
+    private long[] searchWord(String word) {
+        int first = this.firstTermAtLeast(word);
+        int last = first;
+        int size = 0;
+        while (last < this.terms.length && this.terms[last].startsWith(word)) {
+            size += this.postings[last].length;
+            last++;
+        }
+
+        long[] hits = new long[size];
+        size = 0;
+        for (
+                int i = first;
+                i < last;
+                i++
+        ) {
+            boolean isExact = this.terms[i].length() == word.length();
+            for (int posting : this.postings[i]) {
+                long position = posting >>> fieldBits;
+                hits[size++] = position << Integer.SIZE | SearchIndex.score(posting & ((1 << fieldBits) - 1), isExact);
+            }
+        }
+        if (first + 1 == last) {
+            return hits;
+        }
+
+        // Several words may share the prefix, and only the best of them counts for each record
+        Arrays.sort(hits);
+        int distinct = 0;
+        for (long hit : hits) {
+            if (0 < distinct && hits[distinct - 1] >>> Integer.SIZE == hit >>> Integer.SIZE) {
+                hits[distinct - 1] = hit;
+            }
+            else {
+                hits[distinct++] = hit;
+            }
+        }
+        return Arrays.copyOf(hits, distinct);
+    }
+
+    /**
+     * Counts the distinct words in the index.
+     *
+     * @return The number of words.
+     */
+    int size() {
+        return this.terms.length;
+    }
+
+    private static final class Postings {
+
+        private int[] entries = new int[4];
+        private int   size    = 0;
+
+        void add(int entry) {
+            if (this.entries.length == this.size) {
+                this.entries = Arrays.copyOf(this.entries, 2 * this.size);
+            }
+            this.entries[this.size++] = entry;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.entries, this.size);
+        }
+
+    }
+
+}
@@ -51,6 +51,16 @@ public abstract class Order
         this.stateContext.advance();
     }
 
+    /**
+     * Advances the state of the order until it reaches the given state.
+     * Nothing happens if the order already reached it.
+     *
+     * @param stateType The state to reach.
+     */
+    public void advanceTo(StateType stateType) {
+        this.stateContext.advanceTo(stateType);
+    }
+
     /**
      * Gets the appetizer of the order.
      *
@@ -197,6 +207,15 @@ public abstract class Order
      */
     public abstract OrderCategoryType getCategory();
 
+    /**
+     * Gets the payment strategy of the order.
+     *
+     * @return The payment strategy.
+     */
+    public PaymentStrategy getPaymentStrategy() {
+        return this.paymentContext.getPaymentStrategy();
+    }
+
     /**
      * Gets the current payment strategy of the order.
      *
@@ -90,6 +90,7 @@ public class OrderBuilder {
                 appetizerDecoratorRecord.description(),
                 appetizerDecoratorRecord.cost()
                                                                 );
+        decorator.setId(appetizerDecoratorRecord.id());
         this.order.setAppetizer(decorator);
     }
 
@@ -212,6 +213,7 @@ public class OrderBuilder {
                 beverageDecoratorRecord.description(),
                 beverageDecoratorRecord.cost()
                                                                );
+        decorator.setId(beverageDecoratorRecord.id());
         this.order.setBeverage(decorator);
     }
 
@@ -232,6 +234,7 @@ public class OrderBuilder {
                 dessertDecoratorRecord.description(),
                 dessertDecoratorRecord.cost()
                                                               );
+        decorator.setId(dessertDecoratorRecord.id());
         this.order.setDessert(decorator);
     }
 
@@ -252,6 +255,7 @@ public class OrderBuilder {
                 mainCourseDecoratorRecord.description(),
                 mainCourseDecoratorRecord.cost()
                                                                  );
+        decorator.setId(mainCourseDecoratorRecord.id());
         this.order.setMainCourse(decorator);
     }
 
@@ -275,6 +279,7 @@ public class OrderBuilder {
                 appetizerRecord.description(),
                 appetizerRecord.cost()
                                                        );
+        component.setId(appetizerRecord.id());
         this.order.setAppetizer(component);
     }
 
@@ -293,6 +298,7 @@ public class OrderBuilder {
                 beverageRecord.description(),
                 beverageRecord.cost()
                                                       );
+        component.setId(beverageRecord.id());
         this.order.setBeverage(component);
     }
 
@@ -324,6 +330,7 @@ public class OrderBuilder {
                 dessertRecord.description(),
                 dessertRecord.cost()
                                                      );
+        component.setId(dessertRecord.id());
         this.order.setDessert(component);
     }
 
@@ -342,6 +349,7 @@ public class OrderBuilder {
                 mainCourseRecord.description(),
                 mainCourseRecord.cost()
                                                         );
+        component.setId(mainCourseRecord.id());
         this.order.setMainCourse(component);
     }
 
@@ -19,6 +19,10 @@ public class CreditCard
         this.cardNumber = cardNumber;
     }
 
+    public String getCardNumber() {
+        return this.cardNumber;
+    }
+
     @Override
     public String pay(double amount) {
         return "Pagamento de R$" + amount + " realizado com sucesso via " + this.getPaymentType() + " de número " +
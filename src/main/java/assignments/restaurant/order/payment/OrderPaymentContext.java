@@ -19,6 +19,10 @@ public class OrderPaymentContext
     public OrderPaymentContext() {
     }
 
+    public PaymentStrategy getPaymentStrategy() {
+        return this.paymentStrategy;
+    }
+
     public PaymentType getPaymentType() {
         return this.paymentStrategy.getPaymentType();
     }
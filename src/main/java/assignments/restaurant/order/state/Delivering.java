@@ -8,15 +8,23 @@ package assignments.restaurant.order.state;
 
 import java.io.Serial;
 
-public class Delivering
+public final class Delivering
         implements State {
 
     @Serial
-    private static final long serialVersionUID = 1L;
+    private static final long       serialVersionUID = 1L;
+    private static final Delivering instance         = new Delivering();
+
+    private Delivering() {
+    }
+
+    public static Delivering getInstance() {
+        return instance;
+    }
 
     @Override
-    public void advance(OrderStateContext context) {
-        context.setState(new Finished());
+    public State next() {
+        return Finished.getInstance();
     }
 
     @Override
@@ -24,4 +32,14 @@ public class Delivering
         return StateType.Delivering;
     }
 
+    /**
+     * Keeps the state a singleton when an order is deserialized.
+     *
+     * @return The only instance of the state.
+     */
+    @Serial
+    private Object readResolve() {
+        return instance;
+    }
+
 }
@@ -8,14 +8,22 @@ package assignments.restaurant.order.state;
 
 import java.io.Serial;
 
-public class Finished
+public final class Finished
         implements State {
 
     @Serial
-    private static final long serialVersionUID = 1L;
+    private static final long     serialVersionUID = 1L;
+    private static final Finished instance         = new Finished();
+
+    private Finished() {
+    }
+
+    public static Finished getInstance() {
+        return instance;
+    }
 
     @Override
-    public void advance(OrderStateContext context) {
+    public State next() {
         throw new IllegalStateException("Não é possível avançar o estado de um pedido que já foi finalizado.");
     }
 
@@ -24,4 +32,14 @@ public class Finished
         return StateType.Finished;
     }
 
+    /**
+     * Keeps the state a singleton when an order is deserialized.
+     *
+     * @return The only instance of the state.
+     */
+    @Serial
+    private Object readResolve() {
+        return instance;
+    }
+
 }
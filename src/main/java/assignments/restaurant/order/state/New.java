@@ -8,15 +8,23 @@ package assignments.restaurant.order.state;
 
 import java.io.Serial;
 
-public class New
+public final class New
         implements State {
 
     @Serial
     private static final long serialVersionUID = 1L;
+    private static final New  instance         = new New();
+
+    private New() {
+    }
+
+    public static New getInstance() {
+        return instance;
+    }
 
     @Override
-    public void advance(OrderStateContext context) {
-        context.setState(new Preparing());
+    public State next() {
+        return Preparing.getInstance();
     }
 
     @Override
@@ -24,4 +32,14 @@ public class New
         return StateType.New;
     }
 
+    /**
+     * Keeps the state a singleton when an order is deserialized.
+     *
+     * @return The only instance of the state.
+     */
+    @Serial
+    private Object readResolve() {
+        return instance;
+    }
+
 }
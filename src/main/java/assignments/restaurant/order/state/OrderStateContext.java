@@ -8,28 +8,69 @@ package assignments.restaurant.order.state;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
+/**
+ * Holds the state of an order, which is advanced by compare-and-set, so orders can be advanced concurrently without a
+ * lock and no advance is lost.
+ * The state is a volatile field updated through a VarHandle instead of an AtomicReference, so every order does not
+ * carry one more object.
+ */
 public class OrderStateContext
         implements Serializable {
 
     @Serial
-    private static final long  serialVersionUID = 1L;
-    private              State state;
+    private static final long      serialVersionUID = 1L;
+    private static final VarHandle stateHandle;
+    private volatile     State     state;
+
+    static {
+        try {
+            stateHandle = MethodHandles.lookup().findVarHandle(OrderStateContext.class, "state", State.class);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     public OrderStateContext() {
-        this.state = new New();
+        this.state = New.getInstance();
     }
 
+    /**
+     * Advances the state to the next one.
+     * If another thread advances the state meanwhile, the advance is retried from the state it reached, so both
+     * advances take effect.
+     *
+     * @throws IllegalStateException if the order is already finished.
+     */
     public void advance() {
-        this.state.advance(this);
+        while (true) {
+            var state = this.state;
+            if (OrderStateContext.stateHandle.compareAndSet(this, state, state.next())) {
+                return;
+            }
+        }
     }
 
-    public StateType getStateType() {
-        return this.state.getType();
+    /**
+     * Advances the state until it reaches the given one.
+     * States are only ever advanced, so a state that was already reached or passed is ignored, which makes it safe to
+     * apply the same change more than once.
+     *
+     * @param stateType The state to reach.
+     */
+    public void advanceTo(StateType stateType) {
+        var state = this.state;
+        while (state.getType().compareTo(stateType) < 0) {
+            OrderStateContext.stateHandle.compareAndSet(this, state, state.next());
+            state = this.state;
+        }
     }
 
-    public void setState(State state) {
-        this.state = state;
+    public StateType getStateType() {
+        return this.state.getType();
     }
 
 }
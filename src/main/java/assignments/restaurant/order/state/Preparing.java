@@ -8,15 +8,23 @@ package assignments.restaurant.order.state;
 
 import java.io.Serial;
 
-public class Preparing
+public final class Preparing
         implements State {
 
     @Serial
-    private static final long serialVersionUID = 1L;
+    private static final long      serialVersionUID = 1L;
+    private static final Preparing instance         = new Preparing();
+
+    private Preparing() {
+    }
+
+    public static Preparing getInstance() {
+        return instance;
+    }
 
     @Override
-    public void advance(OrderStateContext context) {
-        context.setState(new Delivering());
+    public State next() {
+        return Delivering.getInstance();
     }
 
     @Override
@@ -24,4 +32,14 @@ public class Preparing
         return StateType.Preparing;
     }
 
+    /**
+     * Keeps the state a singleton when an order is deserialized.
+     *
+     * @return The only instance of the state.
+     */
+    @Serial
+    private Object readResolve() {
+        return instance;
+    }
+
 }
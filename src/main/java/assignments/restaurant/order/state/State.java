@@ -13,12 +13,20 @@ import java.io.Serializable;
  *
  * This class is part of the State design pattern.
  * It represents the state of an order.
+ * States hold nothing but their type, so each one is a singleton, and advancing an order only swaps which one it
+ * refers to, without allocating.
  */
 
 public interface State
         extends Serializable {
 
-    void advance(OrderStateContext context);
+    /**
+     * Gets the state that follows this one.
+     *
+     * @return The next state.
+     * @throws IllegalStateException if there is no state after this one.
+     */
+    State next();
 
     StateType getType();
 
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.client;
+
+import assignments.restaurant.app.server.MenuSlice;
+import assignments.restaurant.app.server.Response;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.data.RestrictByCategory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MenuCacheTest {
+
+    private static final MenuSlice desserts = new MenuSlice(null, RestrictByCategory.Dessert, null);
+
+    @Test
+    void shouldKeepMenuUntilServerAnnouncesNewOne()
+            throws IOException {
+        var menuCache = new MenuCache();
+        var menuComponents = Query.fetchAllMenuComponents(null, RestrictByCategory.Dessert, null);
+        assertEquals(0, menuCache.getVersion(desserts));
+
+        var sentMenu = menuCache.update(desserts, Response.sendMenu(menuComponents, 5, 1));
+        assertEquals(menuComponents, sentMenu);
+        assertEquals(5, menuCache.getVersion(desserts));
+        assertSame(sentMenu, menuCache.update(desserts, Response.menuNotModified(5, 2)));
+
+        menuCache.invalidate(5);
+        assertEquals(5, menuCache.getVersion(desserts));
+        menuCache.invalidate(6);
+        assertEquals(0, menuCache.getVersion(desserts));
+    }
+
+    @Test
+    void shouldRejectUnexpectedMenuResponses() {
+        var menuCache = new MenuCache();
+        assertThrows(IOException.class, () -> menuCache.update(desserts, Response.menuNotModified(5, 1)));
+        assertThrows(IOException.class, () -> menuCache.update(desserts, Response.confirmReceivedOrder(1)));
+    }
+
+}
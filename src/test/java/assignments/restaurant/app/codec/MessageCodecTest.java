@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.codec;
+
+import assignments.restaurant.app.server.MenuSlice;
+import assignments.restaurant.app.server.OrderChange;
+import assignments.restaurant.app.server.OrderChangeType;
+import assignments.restaurant.app.server.Request;
+import assignments.restaurant.app.server.RequestType;
+import assignments.restaurant.app.server.Response;
+import assignments.restaurant.app.server.ResponseType;
+import assignments.restaurant.component.CategoryType;
+import assignments.restaurant.cuisine.CuisineType;
+import assignments.restaurant.data.MenuComponentRecord;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.data.RestrictByCuisine;
+import assignments.restaurant.data.RestrictByDecorator;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.OrderBuilder;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.Cash;
+import assignments.restaurant.order.payment.CreditCard;
+import assignments.restaurant.order.state.StateType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageCodecTest {
+
+    private static final MenuComponentRecord appetizerRecord           = Query.fetchMenuComponentById("pao_de_alho")
+                                                                              .getFirst();
+    private static final MenuComponentRecord appetizerRecordDecorator  = Query.fetchMenuComponentById("mucarela")
+                                                                              .getFirst();
+    private static final MenuComponentRecord beverageRecord            = Query.fetchMenuComponentById("caipirinha")
+                                                                              .getFirst();
+    private static final MenuComponentRecord dessertRecord             = Query.fetchMenuComponentById("brigadeiro")
+                                                                              .getFirst();
+    private static final MenuComponentRecord mainCourseRecord          = Query.fetchMenuComponentById("feijoada")
+                                                                              .getFirst();
+    private static final MenuComponentRecord mainCourseRecordDecorator = Query.fetchMenuComponentById("farofa")
+                                                                              .getFirst();
+    private static final byte[]              serverHello               = {
+            'R',
+            'E',
+            'S',
+            'T',
+            MessageCodec.currentVersion
+    };
+
+    private static Order createOrder() {
+        var orderBuilder = new OrderBuilder(OrderCategoryType.Delivery);
+        orderBuilder.setCustomerName("Alice Andrade");
+        orderBuilder.setAppetizer(appetizerRecord);
+        orderBuilder.decorateAppetizer(appetizerRecordDecorator);
+        orderBuilder.decorateAppetizer(appetizerRecordDecorator);
+        orderBuilder.setMainCourse(mainCourseRecord);
+        orderBuilder.decorateMainCourse(mainCourseRecordDecorator);
+        orderBuilder.setBeverage(beverageRecord);
+        orderBuilder.setDessert(dessertRecord);
+        orderBuilder.setPaymentStrategy(new CreditCard("1234 5678 1234 5678"));
+        return orderBuilder.build();
+    }
+
+    private static Object roundTrip(Object message)
+            throws IOException {
+        return MessageCodecTest.roundTrip(message, MessageCodec.currentVersion);
+    }
+
+    private static Object roundTrip(Object message, int version)
+            throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        new BinaryMessageOutput(bytes, version).write(message);
+        return new BinaryMessageInput(new ByteArrayInputStream(bytes.toByteArray()), version).read();
+    }
+
+    private static int sizeOf(MessageOutput messageOutput, ByteArrayOutputStream bytes, Object message)
+            throws IOException {
+        int before = bytes.size();
+        messageOutput.write(message);
+        return bytes.size() - before;
+    }
+
+    @Test
+    void shouldRebuildOrderFromBinaryMessage()
+            throws Exception {
+        var order = MessageCodecTest.createOrder();
+        order.advance();
+
+        var request = (Request) MessageCodecTest.roundTrip(Request.sendOrder(order));
+
+        assertEquals(RequestType.SendOrder, request.getRequestType());
+        assertEquals(order.toString(), request.getOrder().toString());
+        assertEquals(StateType.Preparing, request.getOrder().getStateType());
+        assertEquals("1234 5678 1234 5678", ((CreditCard) request.getOrder().getPaymentStrategy()).getCardNumber());
+    }
+
+    @Test
+    void shouldRebuildOrderWithComponentsMissingFromMenu()
+            throws Exception {
+        var orderBuilder = new OrderBuilder(OrderCategoryType.Delivery);
+        orderBuilder.setCustomerName("Bruno Barbosa");
+        orderBuilder.setAppetizer(new MenuComponentRecord(
+                "bruschetta",
+                CategoryType.Appetizer,
+                CuisineType.Italian,
+                false,
+                "Bruschetta",
+                "Pão italiano tostado com tomate e manjericão.",
+                12.5
+        ));
+        orderBuilder.decorateAppetizer(new MenuComponentRecord(
+                "burrata",
+                CategoryType.Appetizer,
+                CuisineType.Italian,
+                true,
+                "Burrata",
+                "Queijo fresco cremoso.",
+                8.25
+        ));
+        orderBuilder.setMainCourse(mainCourseRecord);
+        orderBuilder.setBeverage(beverageRecord);
+        orderBuilder.setDessert(dessertRecord);
+        orderBuilder.setPaymentStrategy(new Cash());
+        var order = orderBuilder.build();
+
+        var request = (Request) MessageCodecTest.roundTrip(Request.sendOrder(order));
+
+        assertEquals(order.toString(), request.getOrder().toString());
+        assertEquals(20.75, request.getOrder().getAppetizer().getCost());
+        assertThrows(
+                IOException.class,
+                () -> MessageCodecTest.roundTrip(Request.sendOrder(order), MessageCodec.menuRequestVersion)
+        );
+    }
+
+    @Test
+    void shouldRebuildOrderFromIdsBeforeOrderRecordVersion()
+            throws Exception {
+        var order = MessageCodecTest.createOrder();
+
+        var request = (Request) MessageCodecTest.roundTrip(Request.sendOrder(order), MessageCodec.menuRequestVersion);
+
+        assertEquals(order.toString(), request.getOrder().toString());
+    }
+
+    @Test
+    void shouldReferToMenuRecordsAlreadySentOnStream()
+            throws Exception {
+        var order = MessageCodecTest.createOrder();
+        var bytes = new ByteArrayOutputStream();
+        var messageOutput = new BinaryMessageOutput(bytes, MessageCodec.currentVersion);
+
+        int firstSize = MessageCodecTest.sizeOf(messageOutput, bytes, Request.sendOrder(order));
+        int secondSize = MessageCodecTest.sizeOf(messageOutput, bytes, Request.sendOrder(order));
+
+        assertTrue(secondSize < firstSize);
+        var messageInput = new BinaryMessageInput(
+                new ByteArrayInputStream(bytes.toByteArray()),
+                MessageCodec.currentVersion
+        );
+        assertEquals(order.toString(), ((Request) messageInput.read()).getOrder().toString());
+        assertEquals(order.toString(), ((Request) messageInput.read()).getOrder().toString());
+    }
+
+    @Test
+    void shouldRebuildOrderChangesFromBinaryMessage()
+            throws Exception {
+        var order = MessageCodecTest.createOrder();
+        var response = (Response) MessageCodecTest.roundTrip(Response.sendOrderChanges(List.of(
+                OrderChange.added(1, 1, order),
+                OrderChange.advanced(2, 1, StateType.Preparing),
+                OrderChange.removed(3, 1)
+        )));
+
+        assertEquals(ResponseType.SendOrderChanges, response.getResponseType());
+        assertEquals(3, response.getVersion());
+
+        var orderChanges = response.getOrderChanges();
+        assertEquals(OrderChangeType.Added, orderChanges.get(0).orderChangeType());
+        assertEquals(order.toString(), orderChanges.get(0).order().toString());
+        assertEquals(OrderChangeType.Advanced, orderChanges.get(1).orderChangeType());
+        assertEquals(StateType.Preparing, orderChanges.get(1).stateType());
+        assertEquals(OrderChangeType.Removed, orderChanges.get(2).orderChangeType());
+        assertNull(orderChanges.get(2).order());
+    }
+
+    @Test
+    void shouldKeepCorrelationIds()
+            throws Exception {
+        var sentRequest = Request.advanceOrder(3);
+        var request = (Request) MessageCodecTest.roundTrip(sentRequest);
+        assertEquals(sentRequest.getCorrelationId(), request.getCorrelationId());
+        assertEquals(3, request.getOrderId());
+
+        var response = (Response) MessageCodecTest.roundTrip(Response.confirmAdvancedOrder(42));
+        assertEquals(42, response.getCorrelationId());
+    }
+
+    @Test
+    void shouldRebuildBatchRequests()
+            throws Exception {
+        var order = MessageCodecTest.createOrder();
+        var sentOrders = (Request) MessageCodecTest.roundTrip(Request.sendOrderBatch(List.of(order, order)));
+        assertEquals(RequestType.SendOrderBatch, sentOrders.getRequestType());
+        assertEquals(2, sentOrders.getOrders().size());
+        assertEquals(order.toString(), sentOrders.getOrders().get(1).toString());
+
+        var sentRequest = Request.advanceOrderBatch(List.of(1, 2, 3));
+        var advancedOrders = (Request) MessageCodecTest.roundTrip(sentRequest);
+        assertEquals(RequestType.AdvanceOrderBatch, advancedOrders.getRequestType());
+        assertEquals(List.of(1, 2, 3), advancedOrders.getOrderIds());
+        assertEquals(sentRequest.getCorrelationId(), advancedOrders.getCorrelationId());
+    }
+
+    @Test
+    void shouldRejectBatchRequestsBeforeBatchVersion() {
+        assertThrows(
+                IOException.class,
+                () -> MessageCodecTest.roundTrip(Request.advanceOrderBatch(List.of(1)), MessageCodec.correlationVersion)
+                    );
+    }
+
+    @Test
+    void shouldRebuildMenuRequestsAndResponses()
+            throws Exception {
+        var menuSlice = new MenuSlice(RestrictByCuisine.Italian, null, RestrictByDecorator.IsDecorator);
+        var sentRequest = Request.retrieveMenu(menuSlice, 42);
+        var request = (Request) MessageCodecTest.roundTrip(sentRequest);
+        assertEquals(RequestType.RetrieveMenu, request.getRequestType());
+        assertEquals(menuSlice, request.getMenuSlice());
+        assertEquals(42, request.getMenuVersion());
+        assertEquals(sentRequest.getCorrelationId(), request.getCorrelationId());
+
+        var menuComponents = Query.fetchAllMenuComponents(RestrictByCuisine.Italian, null, null);
+        var menu = (Response) MessageCodecTest.roundTrip(Response.sendMenu(menuComponents, 43, 7));
+        assertEquals(ResponseType.SendMenu, menu.getResponseType());
+        assertEquals(menuComponents, menu.getMenuComponents());
+        assertEquals(43, menu.getMenuVersion());
+        assertEquals(7, menu.getCorrelationId());
+
+        var notModified = (Response) MessageCodecTest.roundTrip(Response.menuNotModified(43, 8));
+        assertEquals(ResponseType.MenuNotModified, notModified.getResponseType());
+        assertEquals(43, notModified.getMenuVersion());
+        assertEquals(8, notModified.getCorrelationId());
+
+        assertThrows(
+                IOException.class,
+                () -> MessageCodecTest.roundTrip(sentRequest, MessageCodec.menuVersion)
+                    );
+    }
+
+    @Test
+    void shouldRebuildMenuChangedNotification()
+            throws Exception {
+        var response = (Response) MessageCodecTest.roundTrip(Response.menuChanged(7));
+        assertEquals(ResponseType.MenuChanged, response.getResponseType());
+        assertEquals(7, response.getMenuVersion());
+        assertEquals(0, response.getCorrelationId());
+    }
+
+    @Test
+    void shouldNotSendMenuChangedBeforeMenuVersion()
+            throws Exception {
+        var bytes = new ByteArrayOutputStream();
+        var messageOutput = new BinaryMessageOutput(bytes, MessageCodec.batchVersion);
+        messageOutput.write(Response.menuChanged(7));
+        assertEquals(0, bytes.size());
+        assertEquals(0, messageOutput.getWrittenBytes());
+    }
+
+    @Test
+    void shouldRejectFrameLargerThanMaximum() {
+        var frame = new byte[]{0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, MessageCodec.requestTag};
+        var input = new BinaryMessageInput(new ByteArrayInputStream(frame), MessageCodec.currentVersion);
+
+        assertThrows(IOException.class, input::read);
+    }
+
+    @Test
+    void shouldReadNoCorrelationIdFromFirstVersion()
+            throws Exception {
+        var request = (Request) MessageCodecTest.roundTrip(Request.advanceOrder(3), 1);
+        assertEquals(0, request.getCorrelationId());
+        assertEquals(3, request.getOrderId());
+    }
+
+    @Test
+    void shouldNegotiateBinaryProtocol()
+            throws Exception {
+        var clientToServer = new ByteArrayOutputStream();
+        var clientStreams = MessageCodec.connect(
+                new ByteArrayInputStream(serverHello),
+                clientToServer,
+                MessageCodecType.Binary
+        );
+        clientStreams.output().write(Request.advanceOrder(7));
+
+        var serverToClient = new ByteArrayOutputStream();
+        var serverStreams = MessageCodec.accept(new ByteArrayInputStream(clientToServer.toByteArray()), serverToClient);
+
+        assertEquals(MessageCodecType.Binary, serverStreams.messageCodecType());
+        assertEquals(7, ((Request) serverStreams.input().read()).getOrderId());
+        assertArrayEquals(serverHello, serverToClient.toByteArray());
+    }
+
+    @Test
+    void shouldFallBackToSerializedProtocol()
+            throws Exception {
+        var clientToServer = new ByteArrayOutputStream();
+        new SerializedMessageOutput(clientToServer).write(Request.retrieveOrders());
+
+        var serverStreams = MessageCodec.accept(
+                new ByteArrayInputStream(clientToServer.toByteArray()),
+                new ByteArrayOutputStream()
+        );
+
+        assertEquals(MessageCodecType.Serialized, serverStreams.messageCodecType());
+        var request = assertInstanceOf(Request.class, serverStreams.input().read());
+        assertEquals(RequestType.RetrieveOrders, request.getRequestType());
+    }
+
+    @Test
+    void shouldRejectUnknownProtocol() {
+        assertThrows(
+                IOException.class,
+                () -> MessageCodec.accept(new ByteArrayInputStream("HTTP/1.1".getBytes()), new ByteArrayOutputStream())
+        );
+    }
+
+    @Test
+    void shouldResetSerializationOnInterval()
+            throws Exception {
+        var order = MessageCodecTest.createOrder();
+        var bytes = new ByteArrayOutputStream();
+        var output = new SerializedMessageOutput(bytes, 1, Integer.MAX_VALUE);
+
+        output.write(Response.sendOrderChanges(List.of(OrderChange.added(1, 1, order))));
+        assertTrue(0 < output.getRetainedObjects());
+        order.advance();
+        output.write(Response.sendOrderChanges(List.of(OrderChange.added(2, 1, order))));
+
+        assertEquals(1, output.getResets());
+        assertEquals(2, output.getWrittenMessages());
+
+        var input = new SerializedMessageInput(new ByteArrayInputStream(bytes.toByteArray()));
+        input.read();
+        var response = (Response) input.read();
+        assertEquals(StateType.Preparing, response.getOrderChanges().getFirst().order().getStateType());
+    }
+
+    @Test
+    void shouldResetSerializationWhenRetainingTooManyObjects()
+            throws Exception {
+        var output = new SerializedMessageOutput(new ByteArrayOutputStream(), Integer.MAX_VALUE, 16);
+        for (
+                int i = 1;
+                i <= 10;
+                i++
+        ) {
+            output.write(Response.sendOrderChanges(List.of(OrderChange.added(i, i, MessageCodecTest.createOrder()))));
+        }
+
+        assertEquals(9, output.getResets());
+        assertEquals(1, output.getMessagesSinceReset());
+    }
+
+    @Test
+    void shouldWriteFewerBytesThanSerialization()
+            throws Exception {
+        var orders = new ConcurrentHashMap<Integer, Order>();
+        for (
+                int i = 1;
+                i <= 10;
+                i++
+        ) {
+            orders.put(i, MessageCodecTest.createOrder());
+        }
+        var snapshot = Response.sendOrders(orders, 10);
+        var change = Response.sendOrderChanges(List.of(OrderChange.advanced(11, 1, StateType.Preparing)));
+
+        var serializedBytes = new ByteArrayOutputStream();
+        var serialized = new SerializedMessageOutput(serializedBytes);
+        var binaryBytes = new ByteArrayOutputStream();
+        var binary = new BinaryMessageOutput(binaryBytes, MessageCodec.currentVersion);
+
+        int serializedSnapshotSize = MessageCodecTest.sizeOf(serialized, serializedBytes, snapshot);
+        int binarySnapshotSize = MessageCodecTest.sizeOf(binary, binaryBytes, snapshot);
+        int serializedChangeSize = MessageCodecTest.sizeOf(serialized, serializedBytes, change);
+        int binaryChangeSize = MessageCodecTest.sizeOf(binary, binaryBytes, change);
+
+        assertTrue(binarySnapshotSize * 3 < serializedSnapshotSize);
+        assertTrue(binaryChangeSize * 10 < serializedChangeSize);
+    }
+
+}
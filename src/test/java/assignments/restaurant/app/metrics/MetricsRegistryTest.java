@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsRegistryTest {
+
+    @Test
+    void shouldReportPercentilesWithinBucketPrecision() {
+        var histogram = new Histogram();
+        for (
+                long i = 1;
+                i <= 10_000;
+                i++
+        ) {
+            histogram.record(i * 1_000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMaximum());
+        assertEquals(5_000_500, histogram.getMean(), 0.1);
+        assertEquals(5_000_000, histogram.getPercentile(0.5), 5_000_000 * 0.07);
+        assertEquals(9_900_000, histogram.getPercentile(0.99), 9_900_000 * 0.07);
+        assertEquals(10_000_000, histogram.getPercentile(1));
+    }
+
+    @Test
+    void shouldKeepSmallValuesExact() {
+        var histogram = new Histogram();
+        histogram.record(0);
+        histogram.record(3);
+        histogram.record(31);
+        histogram.record(-5);
+
+        assertEquals(0, histogram.getPercentile(0.5));
+        assertEquals(3, histogram.getPercentile(0.75));
+        assertEquals(31, histogram.getPercentile(1));
+    }
+
+    @Test
+    void shouldPrintEveryMetric() {
+        var metricsRegistry = new MetricsRegistry();
+        metricsRegistry.counter("requests.SendOrder").increment();
+        metricsRegistry.counter("requests.SendOrder").add(2);
+        var clients = new AtomicLong(4);
+        metricsRegistry.gauge("clients.connected", clients::get);
+        metricsRegistry.histogram("responses.bytes").record(20);
+
+        var bytes = new ByteArrayOutputStream();
+        metricsRegistry.print(new PrintStream(bytes));
+        var text = bytes.toString();
+
+        assertTrue(text.contains("counter requests.SendOrder 3"));
+        assertTrue(text.contains("gauge clients.connected 4"));
+        assertTrue(text.contains("histogram responses.bytes count=1"));
+    }
+
+    @Test
+    void shouldDumpMetricsToFile()
+            throws Exception {
+        var metricsRegistry = new MetricsRegistry();
+        metricsRegistry.counter("requests.RetrieveOrders").increment();
+        var dumpPath = Files.createTempFile("metrics", ".txt");
+        try (var metricsReporter = new MetricsReporter(metricsRegistry, dumpPath)) {
+            metricsReporter.dump();
+            assertTrue(Files.readString(dumpPath).contains("counter requests.RetrieveOrders 1"));
+        }
+        finally {
+            Files.deleteIfExists(dumpPath);
+        }
+    }
+
+}
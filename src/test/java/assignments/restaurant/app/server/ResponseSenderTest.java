@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.server;
+
+import assignments.restaurant.app.codec.SerializedMessageOutput;
+import assignments.restaurant.data.Data;
+import assignments.restaurant.data.MenuComponentRecord;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.OrderBuilder;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.Pix;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseSenderTest {
+
+    private static final MenuComponentRecord appetizerRecord  = Query.fetchMenuComponentById("coxinha").getFirst();
+    private static final MenuComponentRecord beverageRecord   = Query.fetchMenuComponentById("caipirinha").getFirst();
+    private static final MenuComponentRecord dessertRecord    = Query.fetchMenuComponentById("brigadeiro").getFirst();
+    private static final MenuComponentRecord mainCourseRecord = Query.fetchMenuComponentById("feijoada").getFirst();
+    private static final int                 numberOfOrders   = 10;
+
+    private static Order createOrder() {
+        var orderBuilder = new OrderBuilder(OrderCategoryType.DineIn);
+        orderBuilder.setCustomerName("Alice Andrade");
+        orderBuilder.setAppetizer(appetizerRecord);
+        orderBuilder.setBeverage(beverageRecord);
+        orderBuilder.setMainCourse(mainCourseRecord);
+        orderBuilder.setDessert(dessertRecord);
+        orderBuilder.setPaymentStrategy(new Pix());
+        return orderBuilder.build();
+    }
+
+    private static List<Response> readResponses(byte[] bytes)
+            throws IOException, ClassNotFoundException {
+        List<Response> responses = new ArrayList<>();
+        try (var receiveFromServer = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            while (true) {
+                responses.add((Response) receiveFromServer.readObject());
+            }
+        }
+        catch (EOFException e) {
+            return responses;
+        }
+    }
+
+    @Test
+    void shouldResyncSlowClientWithSnapshot()
+            throws Exception {
+        var serverContext = new ServerContext(2, OverflowPolicyType.DropAndResync);
+        var slowClient = new SlowClient();
+        new ResponseSender(
+                new SerializedMessageOutput(slowClient),
+                () -> {
+                },
+                serverContext,
+                new PrintStream(new ByteArrayOutputStream())
+        );
+        slowClient.hold();
+
+        // None of the changes can wait for the slow client
+        for (
+                int i = 0;
+                i < numberOfOrders;
+                i++
+        ) {
+            serverContext.addOrder(ResponseSenderTest.createOrder());
+        }
+
+        slowClient.release();
+        Thread.sleep(1000);
+
+        var responses = ResponseSenderTest.readResponses(slowClient.getBytes());
+        assertTrue(responses.size() < numberOfOrders);
+        assertTrue(responses.stream().anyMatch(response -> ResponseType.SendOrders == response.getResponseType()));
+        assertEquals(numberOfOrders, responses.getLast().getVersion());
+    }
+
+    @Test
+    void shouldKeepMenuChangeDroppedByResync()
+            throws Exception {
+        var serverContext = new ServerContext(2, OverflowPolicyType.DropAndResync);
+        var slowClient = new SlowClient();
+        new ResponseSender(
+                new SerializedMessageOutput(slowClient),
+                () -> {
+                },
+                serverContext,
+                new PrintStream(new ByteArrayOutputStream())
+        );
+        slowClient.hold();
+
+        // The writer is stuck on the first order, so the menu change waits in the queue
+        serverContext.addOrder(ResponseSenderTest.createOrder());
+        var catalog = Data.getInstance().getCatalog();
+        serverContext.publishMenuChange(catalog);
+        for (
+                int i = 1;
+                i < numberOfOrders;
+                i++
+        ) {
+            serverContext.addOrder(ResponseSenderTest.createOrder());
+        }
+
+        slowClient.release();
+        Thread.sleep(1000);
+
+        var responses = ResponseSenderTest.readResponses(slowClient.getBytes());
+        var lastResponse = responses.getLast();
+        assertEquals(ResponseType.MenuChanged, lastResponse.getResponseType());
+        assertEquals(catalog.getVersion(), lastResponse.getMenuVersion());
+        assertEquals(ResponseType.SendOrders, responses.get(responses.size() - 2).getResponseType());
+    }
+
+    @Test
+    void shouldAnswerRequestedSnapshotDroppedByResync()
+            throws Exception {
+        var serverContext = new ServerContext(2, OverflowPolicyType.DropAndResync);
+        var slowClient = new SlowClient();
+        var responseSender = new ResponseSender(
+                new SerializedMessageOutput(slowClient),
+                () -> {
+                },
+                serverContext,
+                new PrintStream(new ByteArrayOutputStream())
+        );
+        slowClient.hold();
+
+        // The writer is stuck on the first order, so the requested snapshot waits in the queue
+        serverContext.addOrder(ResponseSenderTest.createOrder());
+        serverContext.sendOrders(responseSender, 77);
+        for (
+                int i = 1;
+                i < numberOfOrders;
+                i++
+        ) {
+            serverContext.addOrder(ResponseSenderTest.createOrder());
+        }
+
+        slowClient.release();
+        Thread.sleep(1000);
+
+        var responses = ResponseSenderTest.readResponses(slowClient.getBytes());
+        assertTrue(responses.stream()
+                            .anyMatch(response -> ResponseType.SendOrders == response.getResponseType() &&
+                                                  77 == response.getCorrelationId()));
+        assertEquals(numberOfOrders, responses.getLast().getVersion());
+    }
+
+    @Test
+    void shouldCloseConnectionWhenUpdateCannotBeSent()
+            throws Exception {
+        var serverContext = new ServerContext(2, OverflowPolicyType.DropAndResync);
+        var isBroken = new AtomicBoolean(false);
+        var closed = new CountDownLatch(1);
+        new ResponseSender(
+                new SerializedMessageOutput(new OutputStream() {
+                    @Override
+                    public void write(int b)
+                            throws IOException {
+                        if (isBroken.get()) {
+                            throw new IOException("Conexão perdida.");
+                        }
+                    }
+                }),
+                closed::countDown,
+                serverContext,
+                new PrintStream(new ByteArrayOutputStream())
+        );
+        isBroken.set(true);
+
+        serverContext.addOrder(ResponseSenderTest.createOrder());
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, serverContext.countObservers());
+    }
+
+    @Test
+    void shouldDisconnectSlowClient()
+            throws Exception {
+        var serverContext = new ServerContext(1, OverflowPolicyType.Disconnect);
+        var slowClient = new SlowClient();
+        var closed = new AtomicBoolean(false);
+        new ResponseSender(
+                new SerializedMessageOutput(slowClient),
+                () -> closed.set(true),
+                serverContext,
+                new PrintStream(new ByteArrayOutputStream())
+        );
+        slowClient.hold();
+
+        for (
+                int i = 0;
+                i < numberOfOrders;
+                i++
+        ) {
+            serverContext.addOrder(ResponseSenderTest.createOrder());
+        }
+
+        assertTrue(closed.get());
+        assertEquals(0, serverContext.countObservers());
+        assertEquals(numberOfOrders, serverContext.getOrders().size());
+        slowClient.release();
+    }
+
+    /**
+     * A client that stops reading once it is held, until it is released.
+     */
+    private static class SlowClient
+            extends OutputStream {
+
+        private final    ByteArrayOutputStream bytes    = new ByteArrayOutputStream();
+        private volatile CountDownLatch        released = new CountDownLatch(0);
+
+        private byte[] getBytes() {
+            synchronized (this.bytes) {
+                return this.bytes.toByteArray();
+            }
+        }
+
+        private void hold() {
+            this.released = new CountDownLatch(1);
+        }
+
+        private void release() {
+            this.released.countDown();
+        }
+
+        @Override
+        public void write(int b)
+                throws IOException {
+            this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+                throws IOException {
+            try {
+                this.released.await();
+            }
+            catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            synchronized (this.bytes) {
+                this.bytes.write(b, off, len);
+            }
+        }
+
+    }
+
+}
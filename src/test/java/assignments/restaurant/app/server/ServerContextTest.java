@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+package assignments.restaurant.app.server;
+
+import assignments.restaurant.app.store.OrderArchive;
+import assignments.restaurant.app.store.OrderStore;
+import assignments.restaurant.data.MenuComponentRecord;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.OrderBuilder;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.Pix;
+import assignments.restaurant.order.state.StateType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerContextTest {
+
+    private static final MenuComponentRecord appetizerRecord  = Query.fetchMenuComponentById("coxinha").getFirst();
+    private static final MenuComponentRecord beverageRecord   = Query.fetchMenuComponentById("caipirinha").getFirst();
+    private static final MenuComponentRecord dessertRecord    = Query.fetchMenuComponentById("brigadeiro").getFirst();
+    private static final MenuComponentRecord mainCourseRecord = Query.fetchMenuComponentById("feijoada").getFirst();
+    private              List<OrderChange>   orderChanges;
+    private              int                 publications;
+    private              ServerContext       serverContext;
+
+    private static Order createOrder() {
+        var orderBuilder = new OrderBuilder(OrderCategoryType.DineIn);
+        orderBuilder.setCustomerName("Alice Andrade");
+        orderBuilder.setAppetizer(appetizerRecord);
+        orderBuilder.setBeverage(beverageRecord);
+        orderBuilder.setMainCourse(mainCourseRecord);
+        orderBuilder.setDessert(dessertRecord);
+        orderBuilder.setPaymentStrategy(new Pix());
+        return orderBuilder.build();
+    }
+
+    @BeforeEach
+    void createServerContext() {
+        this.orderChanges = new ArrayList<>();
+        this.publications = 0;
+        this.serverContext = new ServerContext();
+        this.serverContext.addObserver((observable, object) -> {
+            this.publications++;
+            for (var change : (List<?>) object) {
+                this.orderChanges.add((OrderChange) change);
+            }
+        });
+    }
+
+    @Test
+    void shouldRecoverOrdersFromStore(@TempDir Path path)
+            throws Exception {
+        try (var orderStore = new OrderStore(path)) {
+            var serverContext = new ServerContext(16, OverflowPolicyType.DropAndResync, orderStore);
+            serverContext.addOrders(List.of(ServerContextTest.createOrder(), ServerContextTest.createOrder()));
+            serverContext.addOrder(ServerContextTest.createOrder());
+            serverContext.advanceOrders(List.of(1, 3));
+            assertTrue(orderStore.snapshot());
+            serverContext.advanceOrder(3);
+            serverContext.removeOrder(2);
+            serverContext.addOrder(ServerContextTest.createOrder());
+            serverContext.removeOrder(4);
+        }
+
+        try (var orderStore = new OrderStore(path)) {
+            var serverContext = new ServerContext(16, OverflowPolicyType.DropAndResync, orderStore);
+            var orders = serverContext.getOrders();
+            assertEquals(2, orders.size());
+            assertEquals(StateType.Preparing, orders.get(1).getStateType());
+            assertEquals(StateType.Delivering, orders.get(3).getStateType());
+            assertEquals(9, serverContext.getVersion());
+
+            // Ids are not reused after a restart, even the id of a removed order
+            serverContext.addOrder(ServerContextTest.createOrder());
+            assertTrue(serverContext.getOrders().containsKey(5));
+        }
+    }
+
+    @Test
+    void shouldArchiveEvictedOrders(@TempDir Path path)
+            throws Exception {
+        try (var orderArchive = new OrderArchive(path.resolve("orders.archive"))) {
+            var retentionPolicy = new RetentionPolicy(Duration.ZERO, Integer.MAX_VALUE);
+            var serverContext = new ServerContext(
+                    16,
+                    OverflowPolicyType.DropAndResync,
+                    null,
+                    orderArchive,
+                    retentionPolicy
+            );
+            List<OrderChange> orderChanges = new ArrayList<>();
+            serverContext.addObserver((observable, object) -> {
+                for (var change : (List<?>) object) {
+                    orderChanges.add((OrderChange) change);
+                }
+            });
+            serverContext.addOrders(List.of(ServerContextTest.createOrder(), ServerContextTest.createOrder()));
+            serverContext.advanceOrders(List.of(1, 2));
+            serverContext.advanceOrders(List.of(1, 2));
+            var beforeFinished = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+            serverContext.advanceOrder(1);
+            var afterFinished = Instant.now();
+            assertEquals(2, serverContext.getOrders().size());
+
+            assertEquals(1, serverContext.sweep());
+            assertEquals(0, serverContext.sweep());
+            assertEquals(1, serverContext.getOrders().size());
+            assertTrue(serverContext.getOrders().containsKey(2));
+            assertEquals(1, orderArchive.size());
+            assertEquals("Alice Andrade", orderArchive.findById(1).customerName());
+            // The archive keeps when the order was finished, not when it was evicted
+            var finishedAt = orderArchive.findById(1).finishedAt();
+            assertFalse(finishedAt.isBefore(beforeFinished));
+            assertFalse(finishedAt.isAfter(afterFinished));
+
+            // The clients see the order finish and then leave
+            assertEquals(OrderChangeType.Removed, orderChanges.getLast().orderChangeType());
+            assertEquals(StateType.Finished, orderChanges.get(orderChanges.size() - 2).stateType());
+            assertEquals(8, serverContext.getVersion());
+        }
+    }
+
+    @Test
+    void shouldKeepBatchWhenArchiveFails(@TempDir Path path)
+            throws Exception {
+        var isFailing = new AtomicBoolean(false);
+        try (var orderArchive = new OrderArchive(path.resolve("orders.archive")) {
+            @Override
+            public void add(int orderId, Order order, Instant finishedAt)
+                    throws IOException {
+                if (isFailing.get()) {
+                    throw new IOException("Disco cheio.");
+                }
+                super.add(orderId, order, finishedAt);
+                // Only the first order of the batch reaches the archive
+                isFailing.set(true);
+            }
+        }) {
+            var retentionPolicy = new RetentionPolicy(Duration.ZERO, Integer.MAX_VALUE);
+            var serverContext = new ServerContext(
+                    16,
+                    OverflowPolicyType.DropAndResync,
+                    null,
+                    orderArchive,
+                    retentionPolicy
+            );
+            serverContext.addOrders(List.of(ServerContextTest.createOrder(), ServerContextTest.createOrder()));
+            for (
+                    int i = 0;
+                    i < 3;
+                    i++
+            ) {
+                serverContext.advanceOrders(List.of(1, 2));
+            }
+            long version = serverContext.getVersion();
+
+            assertThrows(UncheckedIOException.class, serverContext::sweep);
+            // No order is removed until the whole batch is archived
+            assertEquals(2, serverContext.getOrders().size());
+            assertEquals(version, serverContext.getVersion());
+
+            isFailing.set(false);
+            assertEquals(2, serverContext.sweep());
+            assertTrue(serverContext.getOrders().isEmpty());
+            // The order archived by the failed sweep is not archived again
+            assertEquals(2, orderArchive.size());
+        }
+    }
+
+    @Test
+    void shouldKeepFinishedOrdersDuringRetention() {
+        var retentionPolicy = new RetentionPolicy(Duration.ofHours(1), Integer.MAX_VALUE);
+        var serverContext = new ServerContext(16, OverflowPolicyType.DropAndResync, null, null, retentionPolicy);
+        serverContext.addOrder(ServerContextTest.createOrder());
+        serverContext.advanceOrders(List.of(1, 1, 1));
+
+        assertEquals(StateType.Finished, serverContext.getOrders().get(1).getStateType());
+        assertEquals(0, serverContext.sweep());
+        assertEquals(1, serverContext.getOrders().size());
+    }
+
+    @Test
+    void shouldEvictOldestFinishedOrdersBeyondMaximum() {
+        var retentionPolicy = new RetentionPolicy(Duration.ofHours(1), 3);
+        var serverContext = new ServerContext(16, OverflowPolicyType.DropAndResync, null, null, retentionPolicy);
+        for (
+                int i = 0;
+                i < 5;
+                i++
+        ) {
+            serverContext.addOrder(ServerContextTest.createOrder());
+        }
+        serverContext.advanceOrders(List.of(4, 4, 4, 2, 2, 2, 5, 5, 5));
+        serverContext.removeOrder(4);
+
+        // Order 4 was already removed, so only order 2 is evicted to get down to three orders
+        assertEquals(1, serverContext.sweep());
+        assertEquals(List.of(1, 3, 5), serverContext.getOrders().keySet().stream().sorted().toList());
+
+        // Orders still being handled are never evicted
+        serverContext.addOrder(ServerContextTest.createOrder());
+        serverContext.addOrder(ServerContextTest.createOrder());
+        assertEquals(1, serverContext.sweep());
+        assertEquals(List.of(1, 3, 6, 7), serverContext.getOrders().keySet().stream().sorted().toList());
+    }
+
+    @Test
+    void shouldPublishOnlyTheChangedOrder() {
+        var order = ServerContextTest.createOrder();
+        this.serverContext.addOrder(order);
+        this.serverContext.advanceOrder(1);
+        this.serverContext.removeOrder(1);
+
+        assertEquals(3, this.orderChanges.size());
+
+        var added = this.orderChanges.get(0);
+        assertEquals(OrderChangeType.Added, added.orderChangeType());
+        assertEquals(1, added.orderId());
+        assertSame(order, added.order());
+        assertEquals(StateType.New, added.stateType());
+
+        var advanced = this.orderChanges.get(1);
+        assertEquals(OrderChangeType.Advanced, advanced.orderChangeType());
+        assertNull(advanced.order());
+        assertEquals(StateType.Preparing, advanced.stateType());
+
+        var removed = this.orderChanges.get(2);
+        assertEquals(OrderChangeType.Removed, removed.orderChangeType());
+        assertEquals(1, removed.orderId());
+        assertTrue(this.serverContext.getOrders().isEmpty());
+    }
+
+    @Test
+    void shouldIncreaseTheVersionOnEveryChange() {
+        this.serverContext.addOrder(ServerContextTest.createOrder());
+        this.serverContext.addOrder(ServerContextTest.createOrder());
+        this.serverContext.advanceOrder(2);
+
+        assertEquals(List.of(1L, 2L, 3L), this.orderChanges.stream().map(OrderChange::version).toList());
+        assertEquals(3, this.serverContext.getVersion());
+    }
+
+    @Test
+    void shouldNotPublishChangesOfUnknownOrders() {
+        this.serverContext.advanceOrder(42);
+        this.serverContext.removeOrder(42);
+
+        assertTrue(this.orderChanges.isEmpty());
+        assertEquals(0, this.serverContext.getVersion());
+    }
+
+    @Test
+    void shouldPublishBatchOfOrdersOnce() {
+        var orders = List.of(ServerContextTest.createOrder(), ServerContextTest.createOrder(), ServerContextTest.createOrder());
+        this.serverContext.addOrders(orders);
+
+        assertEquals(1, this.publications);
+        assertEquals(List.of(1, 2, 3), this.orderChanges.stream().map(OrderChange::orderId).toList());
+        assertEquals(List.of(1L, 2L, 3L), this.orderChanges.stream().map(OrderChange::version).toList());
+        assertEquals(3, this.serverContext.getOrders().size());
+    }
+
+    @Test
+    void shouldAdvanceBatchOfOrdersOnceSkippingUnknownOrders() {
+        this.serverContext.addOrders(List.of(ServerContextTest.createOrder(), ServerContextTest.createOrder()));
+        this.orderChanges.clear();
+
+        this.serverContext.advanceOrders(List.of(1, 42, 2));
+
+        assertEquals(2, this.publications);
+        assertEquals(List.of(1, 2), this.orderChanges.stream().map(OrderChange::orderId).toList());
+        assertTrue(this.orderChanges.stream().allMatch(change -> OrderChangeType.Advanced == change.orderChangeType()));
+        assertEquals(4, this.serverContext.getVersion());
+    }
+
+    @Test
+    void shouldAdvanceBatchOfOrdersSkippingFinishedOrders() {
+        this.serverContext.addOrders(List.of(ServerContextTest.createOrder(), ServerContextTest.createOrder()));
+        for (
+                int i = 0;
+                i < 3;
+                i++
+        ) {
+            this.serverContext.advanceOrder(2);
+        }
+        this.orderChanges.clear();
+        long version = this.serverContext.getVersion();
+
+        // The finished order comes first, so the order after it is only advanced if the batch goes on
+        this.serverContext.advanceOrders(List.of(2, 1));
+
+        assertEquals(List.of(1), this.orderChanges.stream().map(OrderChange::orderId).toList());
+        assertEquals(version + 1, this.orderChanges.getFirst().version());
+        assertEquals(version + 1, this.serverContext.getVersion());
+        assertEquals(StateType.Preparing, this.serverContext.getOrders().get(1).getStateType());
+        assertEquals(StateType.Finished, this.serverContext.getOrders().get(2).getStateType());
+    }
+
+    @Test
+    void shouldNotPublishEmptyBatch() {
+        this.serverContext.advanceOrders(List.of(42));
+        this.serverContext.addOrders(List.of());
+
+        assertEquals(0, this.publications);
+        assertEquals(0, this.serverContext.getVersion());
+    }
+
+    @Test
+    void shouldAdvanceOrderToStateOnlyForward() {
+        var order = ServerContextTest.createOrder();
+        order.advanceTo(StateType.Delivering);
+        assertEquals(StateType.Delivering, order.getStateType());
+
+        order.advanceTo(StateType.Preparing);
+        assertEquals(StateType.Delivering, order.getStateType());
+    }
+
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.server;
+
+import assignments.restaurant.Manager;
+import assignments.restaurant.app.codec.MessageCodec;
+import assignments.restaurant.app.codec.MessageCodecType;
+import assignments.restaurant.data.MenuComponentRecord;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.OrderBuilder;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.Pix;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerModeTest {
+
+    private static final MenuComponentRecord appetizerRecord  = Query.fetchMenuComponentById("coxinha").getFirst();
+    private static final MenuComponentRecord beverageRecord   = Query.fetchMenuComponentById("caipirinha").getFirst();
+    private static final MenuComponentRecord dessertRecord    = Query.fetchMenuComponentById("brigadeiro").getFirst();
+    private static final MenuComponentRecord mainCourseRecord = Query.fetchMenuComponentById("feijoada").getFirst();
+
+    @AfterEach
+    void resetOutputStreams() {
+        Server.setServerPrintStream(System.out);
+    }
+
+    @BeforeEach
+    void setOutputStreams() {
+        Server.setServerPrintStream(new PrintStream(new ByteArrayOutputStream()));
+    }
+
+    private static Order createOrder(String customerName) {
+        var orderBuilder = new OrderBuilder(OrderCategoryType.Takeaway);
+        orderBuilder.setCustomerName(customerName);
+        orderBuilder.setAppetizer(appetizerRecord);
+        orderBuilder.setBeverage(beverageRecord);
+        orderBuilder.setMainCourse(mainCourseRecord);
+        orderBuilder.setDessert(dessertRecord);
+        orderBuilder.setPaymentStrategy(new Pix());
+        return orderBuilder.build();
+    }
+
+    @Test
+    void shouldProcessServerModeArgument() {
+        var arguments = Server.processArguments(new String[]{
+                String.valueOf(ServerModeTest.findSelectorPort()),
+                "-s"
+        });
+        assertEquals(ServerModeType.Selector, arguments.getServerModeType());
+
+        arguments = Server.processArguments(new String[]{
+                String.valueOf(ServerModeTest.findVirtualThreadPort()),
+                "-v"
+        });
+        assertEquals(ServerModeType.VirtualThread, arguments.getServerModeType());
+
+        arguments = Server.processArguments(new String[]{String.valueOf(ServerModeTest.findSelectorPort())});
+        assertEquals(ServerModeType.ThreadPool, arguments.getServerModeType());
+        assertNull(arguments.getMetricsPath());
+
+        arguments = Server.processArguments(new String[]{
+                String.valueOf(ServerModeTest.findSelectorPort()),
+                "-s",
+                "metrics.txt"
+        });
+        assertEquals(Path.of("metrics.txt"), arguments.getMetricsPath());
+        assertNull(arguments.getMenuPath());
+
+        arguments = Server.processArguments(new String[]{
+                String.valueOf(ServerModeTest.findSelectorPort()),
+                "-s",
+                "-",
+                "menu.csv"
+        });
+        assertNull(arguments.getMetricsPath());
+        assertEquals(Path.of("menu.csv"), arguments.getMenuPath());
+        assertNull(arguments.getStorePath());
+
+        arguments = Server.processArguments(new String[]{
+                String.valueOf(ServerModeTest.findSelectorPort()),
+                "-s",
+                "-",
+                "-",
+                "orders"
+        });
+        assertNull(arguments.getMenuPath());
+        assertEquals(Path.of("orders"), arguments.getStorePath());
+    }
+
+    private static void assertServesMoreClientsThanThePoolSize(ServerModeType serverModeType, int port)
+            throws Exception {
+        var server = new Server(serverModeType);
+        var serverExecutor = Executors.newSingleThreadExecutor();
+        serverExecutor.submit(() -> server.run(port));
+        Thread.sleep(1000);
+
+        int numberOfClients = 4 * Manager.getInstance().getMaximumOfClients();
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (
+                    int i = 0;
+                    i < numberOfClients;
+                    i++
+            ) {
+                var socket = new Socket(Manager.getInstance().getHost(), port);
+                sockets.add(socket);
+                var sendToServer = new ObjectOutputStream(socket.getOutputStream());
+                var receiveFromServer = new ObjectInputStream(socket.getInputStream());
+
+                sendToServer.writeObject(Request.sendOrder(ServerModeTest.createOrder("Cliente " + i)));
+                sendToServer.flush();
+
+                Response response;
+                do {
+                    response = (Response) receiveFromServer.readObject();
+                } while (ResponseType.ConfirmReceivedOrder != response.getResponseType());
+            }
+
+            assertEquals(numberOfClients, server.getOrders().size());
+        }
+        finally {
+            for (var socket : sockets) {
+                socket.close();
+            }
+            serverExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldMatchPipelinedRequestsByCorrelationId()
+            throws Exception {
+        var server = new Server(ServerModeType.Selector);
+        var serverExecutor = Executors.newSingleThreadExecutor();
+        serverExecutor.submit(() -> server.run(ServerModeTest.findPipeliningPort()));
+        Thread.sleep(1000);
+
+        try (var socket = new Socket(Manager.getInstance().getHost(), ServerModeTest.findPipeliningPort())) {
+            var messageStreams = MessageCodec.connect(
+                    socket.getInputStream(),
+                    socket.getOutputStream(),
+                    MessageCodecType.Binary
+            );
+
+            // Every order is sent before any confirmation is read
+            Set<Integer> pendingRequests = new HashSet<>();
+            for (
+                    int i = 0;
+                    i < 50;
+                    i++
+            ) {
+                var request = Request.sendOrder(ServerModeTest.createOrder("Cliente " + i));
+                pendingRequests.add(request.getCorrelationId());
+                messageStreams.output().write(request);
+            }
+
+            while (!pendingRequests.isEmpty()) {
+                var response = (Response) messageStreams.input().read();
+                if (ResponseType.ConfirmReceivedOrder == response.getResponseType()) {
+                    assertTrue(pendingRequests.remove(response.getCorrelationId()));
+                }
+            }
+            assertEquals(50, server.getOrders().size());
+
+            // The metrics of a request are recorded after it is confirmed, but before the next one is handled
+            var finishConnection = Request.finishConnection();
+            messageStreams.output().write(finishConnection);
+            Response response;
+            do {
+                response = (Response) messageStreams.input().read();
+            } while (finishConnection.getCorrelationId() != response.getCorrelationId());
+            assertEquals(50, server.getMetricsRegistry().counter("requests.SendOrder").get());
+            assertEquals(50, server.getMetricsRegistry().histogram("requests.SendOrder.nanoseconds").getCount());
+        }
+        finally {
+            serverExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldServeClientsWhileOthersSendPartialMessagesInSelectorMode()
+            throws Exception {
+        var server = new Server(ServerModeType.Selector);
+        var serverExecutor = Executors.newSingleThreadExecutor();
+        serverExecutor.submit(() -> server.run(ServerModeTest.findPartialMessagePort()));
+        Thread.sleep(1000);
+
+        List<Socket> stalledSockets = new ArrayList<>();
+        try {
+            // Each of these clients sends only the start of the length of a message, and never the rest
+            for (
+                    int i = 0;
+                    i <= Manager.getInstance().getNumberOfWorkers();
+                    i++
+            ) {
+                var socket = new Socket(Manager.getInstance().getHost(), ServerModeTest.findPartialMessagePort());
+                stalledSockets.add(socket);
+                MessageCodec.connect(socket.getInputStream(), socket.getOutputStream(), MessageCodecType.Binary);
+                socket.getOutputStream().write(new byte[]{0, 0});
+                socket.getOutputStream().flush();
+            }
+
+            try (var socket = new Socket(Manager.getInstance().getHost(), ServerModeTest.findPartialMessagePort())) {
+                socket.setSoTimeout(5000);
+                var messageStreams = MessageCodec.connect(
+                        socket.getInputStream(),
+                        socket.getOutputStream(),
+                        MessageCodecType.Binary
+                );
+                var request = Request.sendOrder(ServerModeTest.createOrder("Cliente"));
+                messageStreams.output().write(request);
+                Response response;
+                do {
+                    response = (Response) messageStreams.input().read();
+                } while (request.getCorrelationId() != response.getCorrelationId());
+                assertEquals(ResponseType.ConfirmReceivedOrder, response.getResponseType());
+            }
+        }
+        finally {
+            for (var socket : stalledSockets) {
+                socket.close();
+            }
+            serverExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldServeMoreClientsThanThePoolSizeInSelectorMode()
+            throws Exception {
+        ServerModeTest.assertServesMoreClientsThanThePoolSize(
+                ServerModeType.Selector,
+                ServerModeTest.findSelectorPort()
+        );
+    }
+
+    @Test
+    void shouldServeMoreClientsThanThePoolSizeInVirtualThreadMode()
+            throws Exception {
+        ServerModeTest.assertServesMoreClientsThanThePoolSize(
+                ServerModeType.VirtualThread,
+                ServerModeTest.findVirtualThreadPort()
+        );
+    }
+
+    private static int findSelectorPort() {
+        return Manager.getInstance().getDefaultSocketPort() + 400;
+    }
+
+    private static int findPartialMessagePort() {
+        return Manager.getInstance().getDefaultSocketPort() + 700;
+    }
+
+    private static int findPipeliningPort() {
+        return Manager.getInstance().getDefaultSocketPort() + 600;
+    }
+
+    private static int findVirtualThreadPort() {
+        return Manager.getInstance().getDefaultSocketPort() + 500;
+    }
+
+}
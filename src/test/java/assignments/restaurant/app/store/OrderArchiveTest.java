@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.store;
+
+import assignments.restaurant.data.MenuComponentRecord;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.OrderBuilder;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.PaymentType;
+import assignments.restaurant.order.payment.Pix;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderArchiveTest {
+
+    private static final MenuComponentRecord appetizerRecord  = Query.fetchMenuComponentById("coxinha").getFirst();
+    private static final MenuComponentRecord beverageRecord   = Query.fetchMenuComponentById("caipirinha").getFirst();
+    private static final MenuComponentRecord decoratorRecord  = Query.fetchMenuComponentById("mucarela").getFirst();
+    private static final MenuComponentRecord dessertRecord    = Query.fetchMenuComponentById("brigadeiro").getFirst();
+    private static final MenuComponentRecord mainCourseRecord = Query.fetchMenuComponentById("feijoada").getFirst();
+    @TempDir
+    private              Path                path;
+
+    private static Order createOrder(String customerName) {
+        var orderBuilder = new OrderBuilder(OrderCategoryType.Takeaway);
+        orderBuilder.setCustomerName(customerName);
+        orderBuilder.setAppetizer(appetizerRecord);
+        orderBuilder.decorateAppetizer(decoratorRecord);
+        orderBuilder.setBeverage(beverageRecord);
+        orderBuilder.setMainCourse(mainCourseRecord);
+        orderBuilder.setDessert(dessertRecord);
+        orderBuilder.setPaymentStrategy(new Pix());
+        return orderBuilder.build();
+    }
+
+    @Test
+    void shouldFindArchivedOrders()
+            throws IOException {
+        var start = Instant.parse("2025-06-01T12:00:00Z");
+        var order = OrderArchiveTest.createOrder("Alice Andrade");
+        try (var orderArchive = new OrderArchive(this.path.resolve("orders.archive"))) {
+            orderArchive.add(7, order, start);
+            orderArchive.add(3, order, start.plusSeconds(60));
+            orderArchive.add(5, order, start.plusSeconds(120));
+            orderArchive.force();
+        }
+
+        try (var orderArchive = new OrderArchive(this.path.resolve("orders.archive"))) {
+            assertEquals(3, orderArchive.size());
+            var archivedOrder = orderArchive.findById(3);
+            assertEquals(3, archivedOrder.orderId());
+            assertEquals(start.plusSeconds(60), archivedOrder.finishedAt());
+            assertEquals(OrderCategoryType.Takeaway, archivedOrder.orderCategoryType());
+            assertEquals(PaymentType.Pix, archivedOrder.paymentType());
+            assertEquals("Alice Andrade", archivedOrder.customerName());
+            assertEquals(order.getTotalCost(), archivedOrder.totalCost());
+            assertEquals(
+                    List.of("coxinha", "mucarela", "feijoada", "", "caipirinha", "", "brigadeiro", ""),
+                    archivedOrder.menuComponentIds()
+            );
+            assertNull(orderArchive.findById(4));
+
+            var archivedOrders = orderArchive.findByFinishedAt(start.plusSeconds(1), start.plusSeconds(121));
+            assertEquals(List.of(3, 5), archivedOrders.stream().map(ArchivedOrder::orderId).toList());
+            assertTrue(orderArchive.findByFinishedAt(start.plusSeconds(121), start.plusSeconds(600)).isEmpty());
+        }
+    }
+
+    @Test
+    void shouldKeepFinishingTimesSorted()
+            throws IOException {
+        var start = Instant.parse("2025-06-01T12:00:00Z");
+        var order = OrderArchiveTest.createOrder("Alice Andrade");
+        try (var orderArchive = new OrderArchive(this.path.resolve("orders.archive"))) {
+            orderArchive.add(1, order, start);
+            // The clock went backwards
+            orderArchive.add(2, order, start.minusSeconds(60));
+            assertEquals(start, orderArchive.findById(2).finishedAt());
+            assertEquals(2, orderArchive.findByFinishedAt(start, start.plusSeconds(1)).size());
+        }
+    }
+
+    @Test
+    void shouldCountRecordsOnlyWhenForced()
+            throws IOException {
+        var archivePath = this.path.resolve("orders.archive");
+        try (var orderArchive = new OrderArchive(archivePath)) {
+            orderArchive.add(1, OrderArchiveTest.createOrder("Alice Andrade"), Instant.now());
+            assertEquals(1, orderArchive.size());
+            // The header does not count the record before it is forced
+            assertEquals(0, ByteBuffer.wrap(Files.readAllBytes(archivePath)).getInt(8));
+            orderArchive.force();
+            assertEquals(1, ByteBuffer.wrap(Files.readAllBytes(archivePath)).getInt(8));
+        }
+    }
+
+    @Test
+    void shouldCutLongCustomerName()
+            throws IOException {
+        var customerName = "Ç".repeat(30);
+        try (var orderArchive = new OrderArchive(this.path.resolve("orders.archive"))) {
+            orderArchive.add(1, OrderArchiveTest.createOrder(customerName), Instant.now());
+            // Each Ç takes two bytes, and the name is cut without splitting one
+            assertEquals("Ç".repeat(19), orderArchive.findById(1).customerName());
+        }
+    }
+
+    @Test
+    void shouldGrowPastManyChunks()
+            throws IOException {
+        var start = Instant.parse("2025-06-01T12:00:00Z");
+        var order = OrderArchiveTest.createOrder("Alice Andrade");
+        int numberOfOrders = 20_000;
+        try (var orderArchive = new OrderArchive(this.path.resolve("orders.archive"))) {
+            for (
+                    int orderId = 1;
+                    orderId <= numberOfOrders;
+                    orderId++
+            ) {
+                orderArchive.add(orderId, order, start.plusSeconds(orderId));
+            }
+        }
+
+        try (var orderArchive = new OrderArchive(this.path.resolve("orders.archive"))) {
+            assertEquals(numberOfOrders, orderArchive.size());
+            assertEquals(start.plusSeconds(12_345), orderArchive.findById(12_345).finishedAt());
+            var archivedOrders = orderArchive.findByFinishedAt(start.plusSeconds(4_000), start.plusSeconds(9_000));
+            assertEquals(5_000, archivedOrders.size());
+            assertEquals(4_000, archivedOrders.getFirst().orderId());
+        }
+    }
+
+}
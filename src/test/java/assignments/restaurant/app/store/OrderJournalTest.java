@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.store;
+
+import assignments.restaurant.app.server.OrderChange;
+import assignments.restaurant.app.server.OrderChangeType;
+import assignments.restaurant.data.MenuComponentRecord;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.OrderBuilder;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.Pix;
+import assignments.restaurant.order.state.StateType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderJournalTest {
+
+    private static final MenuComponentRecord appetizerRecord  = Query.fetchMenuComponentById("coxinha").getFirst();
+    private static final MenuComponentRecord beverageRecord   = Query.fetchMenuComponentById("caipirinha").getFirst();
+    private static final MenuComponentRecord dessertRecord    = Query.fetchMenuComponentById("brigadeiro").getFirst();
+    private static final MenuComponentRecord mainCourseRecord = Query.fetchMenuComponentById("feijoada").getFirst();
+    private              Path                path;
+
+    private static Order createOrder() {
+        var orderBuilder = new OrderBuilder(OrderCategoryType.DineIn);
+        orderBuilder.setCustomerName("Alice Andrade");
+        orderBuilder.setAppetizer(appetizerRecord);
+        orderBuilder.setBeverage(beverageRecord);
+        orderBuilder.setMainCourse(mainCourseRecord);
+        orderBuilder.setDessert(dessertRecord);
+        orderBuilder.setPaymentStrategy(new Pix());
+        return orderBuilder.build();
+    }
+
+    private static List<OrderChange> replay(OrderJournal orderJournal)
+            throws IOException {
+        List<OrderChange> orderChanges = new ArrayList<>();
+        orderJournal.replay(orderChanges::add);
+        return orderChanges;
+    }
+
+    @BeforeEach
+    void createPath()
+            throws IOException {
+        this.path = Files.createTempFile("orders", ".journal");
+        Files.delete(this.path);
+    }
+
+    @AfterEach
+    void deletePath()
+            throws IOException {
+        Files.deleteIfExists(this.path);
+    }
+
+    @Test
+    void shouldReplayAppendedChanges()
+            throws IOException {
+        var order = OrderJournalTest.createOrder();
+        try (var orderJournal = new OrderJournal(this.path)) {
+            orderJournal.append(List.of(OrderChange.added(1, 1, order), OrderChange.added(2, 2, order)));
+            orderJournal.append(List.of(OrderChange.advanced(3, 1, StateType.Preparing)));
+            orderJournal.awaitDurable(orderJournal.append(List.of(OrderChange.removed(4, 2))));
+        }
+
+        try (var orderJournal = new OrderJournal(this.path)) {
+            var orderChanges = OrderJournalTest.replay(orderJournal);
+            assertEquals(4, orderChanges.size());
+            assertEquals(OrderChangeType.Added, orderChanges.get(1).orderChangeType());
+            assertEquals(2, orderChanges.get(1).orderId());
+            assertEquals(order.toString(), orderChanges.get(1).order().toString());
+            assertEquals(StateType.Preparing, orderChanges.get(2).stateType());
+            assertEquals(OrderChangeType.Removed, orderChanges.get(3).orderChangeType());
+            assertEquals(4, orderChanges.get(3).version());
+        }
+    }
+
+    @Test
+    void shouldCutOffIncompleteRecord()
+            throws IOException {
+        long position;
+        try (var orderJournal = new OrderJournal(this.path)) {
+            orderJournal.append(List.of(OrderChange.added(1, 1, OrderJournalTest.createOrder())));
+            position = orderJournal.append(List.of(OrderChange.advanced(2, 1, StateType.Preparing)));
+        }
+        // A crash in the middle of a write leaves part of a record behind
+        Files.write(this.path, new byte[]{0, 0, 0, 1, 0, 0}, StandardOpenOption.APPEND);
+
+        try (var orderJournal = new OrderJournal(this.path)) {
+            assertEquals(position, orderJournal.getPosition());
+            assertEquals(position, Files.size(this.path));
+            assertEquals(2, OrderJournalTest.replay(orderJournal).size());
+            orderJournal.append(List.of(OrderChange.removed(3, 1)));
+        }
+        try (var orderJournal = new OrderJournal(this.path)) {
+            assertEquals(3, OrderJournalTest.replay(orderJournal).size());
+        }
+    }
+
+    @Test
+    void shouldCutOffRecordWithWrongChecksum()
+            throws IOException {
+        long position;
+        try (var orderJournal = new OrderJournal(this.path)) {
+            position = orderJournal.append(List.of(OrderChange.added(1, 1, OrderJournalTest.createOrder())));
+            orderJournal.append(List.of(OrderChange.advanced(2, 1, StateType.Preparing)));
+        }
+        byte[] bytes = Files.readAllBytes(this.path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(this.path, bytes);
+
+        try (var orderJournal = new OrderJournal(this.path)) {
+            assertEquals(position, orderJournal.getPosition());
+            assertEquals(1, OrderJournalTest.replay(orderJournal).size());
+        }
+    }
+
+    @Test
+    void shouldRejectFileThatIsNotJournal()
+            throws IOException {
+        Files.writeString(this.path, "id,category,cuisine");
+        assertThrows(IOException.class, () -> new OrderJournal(this.path));
+    }
+
+    @Test
+    void shouldForceOncePerBatchOfConcurrentAppends()
+            throws Exception {
+        int numberOfAppends = 200;
+        try (
+                var orderJournal = new OrderJournal(this.path);
+                var executor = Executors.newFixedThreadPool(16)
+        ) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (
+                    int i = 1;
+                    i <= numberOfAppends;
+                    i++
+            ) {
+                int orderId = i;
+                futures.add(executor.submit(() -> {
+                    long position = orderJournal.append(List.of(OrderChange.removed(orderId, orderId)));
+                    orderJournal.awaitDurable(position);
+                    return null;
+                }));
+            }
+            for (var future : futures) {
+                future.get();
+            }
+            assertTrue(orderJournal.getSyncs() <= numberOfAppends);
+            assertTrue(0 < orderJournal.getSyncs());
+            assertEquals(numberOfAppends, OrderJournalTest.replay(orderJournal).size());
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.app.store;
+
+import assignments.restaurant.app.server.OrderChange;
+import assignments.restaurant.component.CategoryType;
+import assignments.restaurant.cuisine.CuisineType;
+import assignments.restaurant.data.MenuComponentRecord;
+import assignments.restaurant.data.Query;
+import assignments.restaurant.order.Order;
+import assignments.restaurant.order.OrderBuilder;
+import assignments.restaurant.order.category.OrderCategoryType;
+import assignments.restaurant.order.payment.Pix;
+import assignments.restaurant.order.state.StateType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderStoreTest {
+
+    private static final MenuComponentRecord appetizerRecord  = Query.fetchMenuComponentById("coxinha").getFirst();
+    private static final MenuComponentRecord beverageRecord   = Query.fetchMenuComponentById("caipirinha").getFirst();
+    private static final MenuComponentRecord dessertRecord    = Query.fetchMenuComponentById("brigadeiro").getFirst();
+    private static final MenuComponentRecord mainCourseRecord = Query.fetchMenuComponentById("feijoada").getFirst();
+    @TempDir
+    private              Path                path;
+
+    private static Order createOrder() {
+        var orderBuilder = new OrderBuilder(OrderCategoryType.DineIn);
+        orderBuilder.setCustomerName("Alice Andrade");
+        orderBuilder.setAppetizer(appetizerRecord);
+        orderBuilder.setBeverage(beverageRecord);
+        orderBuilder.setMainCourse(mainCourseRecord);
+        orderBuilder.setDessert(dessertRecord);
+        orderBuilder.setPaymentStrategy(new Pix());
+        return orderBuilder.build();
+    }
+
+    private List<String> listFiles()
+            throws IOException {
+        try (var paths = Files.list(this.path)) {
+            return paths.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    void shouldRecoverFromSnapshotAndTail()
+            throws IOException {
+        var order = OrderStoreTest.createOrder();
+        try (var orderStore = new OrderStore(this.path)) {
+            orderStore.append(List.of(OrderChange.added(1, 1, order), OrderChange.added(2, 2, order)));
+            orderStore.append(List.of(OrderChange.advanced(3, 1, StateType.Preparing)));
+            assertTrue(orderStore.snapshot());
+            orderStore.append(List.of(OrderChange.removed(4, 2)));
+            orderStore.awaitDurable(orderStore.append(List.of(OrderChange.advanced(5, 1, StateType.Delivering))));
+            assertEquals(1, orderStore.getSnapshots());
+        }
+        // The journal held by the snapshot is gone
+        assertEquals(List.of("orders-1.journal", "orders.snapshot"), this.listFiles());
+
+        try (var orderStore = new OrderStore(this.path)) {
+            var orderSnapshot = orderStore.load();
+            assertEquals(1, orderSnapshot.getOrders().size());
+            assertEquals(StateType.Delivering, orderSnapshot.getOrders().get(1).getStateType());
+            assertEquals(order.getCustomerName(), orderSnapshot.getOrders().get(1).getCustomerName());
+            assertEquals(2, orderSnapshot.getOrderCounter());
+            assertEquals(5, orderSnapshot.getVersion());
+        }
+    }
+
+    @Test
+    void shouldRecoverOrdersWithItemsMissingFromMenu()
+            throws IOException {
+        var orderBuilder = new OrderBuilder(OrderCategoryType.DineIn);
+        orderBuilder.setCustomerName("Bruno Barbosa");
+        orderBuilder.setAppetizer(new MenuComponentRecord(
+                "bruschetta",
+                CategoryType.Appetizer,
+                CuisineType.Italian,
+                false,
+                "Bruschetta",
+                "Pão italiano tostado com tomate e manjericão.",
+                12.5
+        ));
+        orderBuilder.setBeverage(beverageRecord);
+        orderBuilder.setMainCourse(mainCourseRecord);
+        orderBuilder.setDessert(dessertRecord);
+        orderBuilder.setPaymentStrategy(new Pix());
+        var order = orderBuilder.build();
+        try (var orderStore = new OrderStore(this.path)) {
+            orderStore.append(List.of(OrderChange.added(1, 1, order)));
+            assertTrue(orderStore.snapshot());
+            orderStore.awaitDurable(orderStore.append(List.of(OrderChange.added(2, 2, order))));
+        }
+
+        try (var orderStore = new OrderStore(this.path)) {
+            var orders = orderStore.load().getOrders();
+            assertEquals(2, orders.size());
+            assertEquals(order.toString(), orders.get(1).toString());
+            assertEquals(order.toString(), orders.get(2).toString());
+        }
+    }
+
+    @Test
+    void shouldSkipSnapshotWithoutChanges()
+            throws IOException {
+        try (var orderStore = new OrderStore(this.path)) {
+            assertFalse(orderStore.snapshot());
+            orderStore.append(List.of(OrderChange.added(1, 1, OrderStoreTest.createOrder())));
+            assertTrue(orderStore.snapshot());
+            assertFalse(orderStore.snapshot());
+            assertEquals(1, orderStore.load().getOrders().size());
+        }
+    }
+
+    @Test
+    void shouldDeleteJournalLeftBehindBySnapshot()
+            throws IOException {
+        try (var orderStore = new OrderStore(this.path)) {
+            orderStore.append(List.of(OrderChange.added(1, 1, OrderStoreTest.createOrder())));
+            orderStore.snapshot();
+        }
+        // A crash after the snapshot was written, but before its journal was deleted, leaves the journal behind
+        try (var orderJournal = new OrderJournal(this.path.resolve("orders-0.journal"))) {
+            orderJournal.append(List.of(OrderChange.added(1, 1, OrderStoreTest.createOrder())));
+        }
+
+        try (var orderStore = new OrderStore(this.path)) {
+            assertEquals(List.of("orders-1.journal", "orders.snapshot"), this.listFiles());
+            var orderSnapshot = orderStore.load();
+            assertEquals(1, orderSnapshot.getOrders().size());
+            assertEquals(1, orderSnapshot.getVersion());
+        }
+    }
+
+    @Test
+    void shouldKeepAppendingWhileSnapshotIsTaken()
+            throws Exception {
+        var order = OrderStoreTest.createOrder();
+        int numberOfOrders = 20_000;
+        try (
+                var orderStore = new OrderStore(this.path);
+                var executor = Executors.newSingleThreadExecutor()
+        ) {
+            // Interrupting a thread blocked on a file channel closes the channel, so a flag stops the snapshots instead
+            var isAppending = new AtomicBoolean(true);
+            var snapshots = executor.submit(() -> {
+                while (isAppending.get()) {
+                    orderStore.snapshot();
+                }
+                return null;
+            });
+            for (
+                    int orderId = 1;
+                    orderId <= numberOfOrders;
+                    orderId++
+            ) {
+                orderStore.append(List.of(OrderChange.added(orderId, orderId, order)));
+            }
+            isAppending.set(false);
+            snapshots.get();
+
+            var orderSnapshot = orderStore.load();
+            assertEquals(numberOfOrders, orderSnapshot.getOrders().size());
+            assertEquals(numberOfOrders, orderSnapshot.getVersion());
+        }
+    }
+
+    @Test
+    void shouldRecoverMillionOrderHistoryInBoundedTime()
+            throws IOException {
+        var order = OrderStoreTest.createOrder();
+        int batchSize = 1_000;
+        int numberOfBatches = 1_000;
+        long version = 0;
+        try (var orderStore = new OrderStore(this.path)) {
+            for (
+                    int batch = 0;
+                    batch < numberOfBatches;
+                    batch++
+            ) {
+                List<OrderChange> added = new ArrayList<>(batchSize);
+                List<OrderChange> removed = new ArrayList<>(batchSize);
+                for (
+                        int i = 1;
+                        i <= batchSize;
+                        i++
+                ) {
+                    added.add(OrderChange.added(++version, batch * batchSize + i, order));
+                }
+                for (
+                        int i = 1;
+                        i <= batchSize;
+                        i++
+                ) {
+                    // Most orders are finished and removed, as during a service day
+                    if (0 != i % 100) {
+                        removed.add(OrderChange.removed(++version, batch * batchSize + i));
+                    }
+                }
+                orderStore.append(added);
+                orderStore.append(removed);
+                if (50 == batch % 100) {
+                    orderStore.snapshot();
+                }
+            }
+        }
+
+        long expectedVersion = version;
+        assertTimeout(Duration.ofSeconds(10), () -> {
+            try (var orderStore = new OrderStore(this.path)) {
+                var orderSnapshot = orderStore.load();
+                assertEquals(numberOfBatches * batchSize / 100, orderSnapshot.getOrders().size());
+                assertEquals(numberOfBatches * batchSize, orderSnapshot.getOrderCounter());
+                assertEquals(expectedVersion, orderSnapshot.getVersion());
+            }
+        });
+    }
+
+}
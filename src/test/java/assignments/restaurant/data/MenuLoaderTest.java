@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.data;
+
+import assignments.restaurant.component.CategoryType;
+import assignments.restaurant.cuisine.CuisineType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MenuLoaderTest {
+
+    private static List<MenuComponentRecord> loadCsv(String csv)
+            throws IOException {
+        return MenuLoader.loadCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void shouldLoadQuotedCsvFields()
+            throws IOException {
+        var records = MenuLoaderTest.loadCsv(
+                "id,category,cuisine,isDecorator,name,description,cost\n" +
+                "pizza,MainCourse,Italian,false,\"Pizza \"\"margherita\"\"\",\"Tomate, muçarela e manjericão.\",42.5\n"
+                                            );
+
+        assertEquals(1, records.size());
+        var record = records.getFirst();
+        assertEquals("pizza", record.id());
+        assertEquals(CategoryType.MainCourse, record.category());
+        assertEquals(CuisineType.Italian, record.cuisine());
+        assertEquals("Pizza \"margherita\"", record.name());
+        assertEquals("Tomate, muçarela e manjericão.", record.description());
+        assertEquals(42.5, record.cost());
+    }
+
+    @Test
+    public void shouldRejectMalformedCsv() {
+        assertThrows(IOException.class, () -> MenuLoaderTest.loadCsv("id,name\n"));
+        assertThrows(IOException.class, () -> MenuLoaderTest.loadCsv("""
+                id,category,cuisine,isDecorator,name,description,cost
+                pizza,MainCourse,Japanese,false,Pizza,Pizza.,42.5
+                """));
+        assertThrows(IOException.class, () -> MenuLoaderTest.loadCsv("""
+                id,category,cuisine,isDecorator,name,description,cost
+                pizza,MainCourse,Italian,false,Pizza,"Pizza.,42.5
+                """));
+    }
+
+    @Test
+    public void shouldRoundTripMenuThroughMemoryMappedBinary()
+            throws IOException {
+        var records = Data.getInstance().getCatalog().getRecords();
+        var path = Files.createTempFile("menu", ".bin");
+        try {
+            MenuLoader.writeBinary(records, path);
+            assertEquals(records, MenuLoader.load(path));
+        }
+        finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void shouldLoadLargeBinaryCatalog()
+            throws IOException {
+        var template = Data.getInstance().getCatalog().getRecords();
+        List<MenuComponentRecord> records = new ArrayList<>();
+        for (
+                int i = 0;
+                i < 50_000;
+                i++
+        ) {
+            var record = template.get(i % template.size());
+            records.add(new MenuComponentRecord(
+                    record.id() + "_" + i,
+                    record.category(),
+                    record.cuisine(),
+                    record.isDecorator(),
+                    record.name(),
+                    record.description(),
+                    record.cost()
+            ));
+        }
+        var path = Files.createTempFile("menu", ".bin");
+        try {
+            MenuLoader.writeBinary(records, path);
+            var catalog = new Catalog(1, MenuLoader.load(path));
+            assertEquals(50_000, catalog.size());
+            assertEquals(records.get(49_999), catalog.findById(records.get(49_999).id()));
+        }
+        finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+}
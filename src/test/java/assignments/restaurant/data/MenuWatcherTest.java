@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class MenuWatcherTest {
+
+    private static void replace(Path path, List<MenuComponentRecord> records)
+            throws IOException {
+        var temporaryPath = Files.createTempFile(path.getParent(), "menu", ".tmp");
+        MenuLoader.writeBinary(records, temporaryPath);
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Test
+    public void shouldApplyChangedMenuFile()
+            throws Exception {
+        var data = Data.getInstance();
+        var previousCatalog = data.getCatalog();
+        var records = previousCatalog.getRecords();
+        var directory = Files.createTempDirectory("menu");
+        var path = directory.resolve("menu.bin");
+        MenuWatcherTest.replace(path, records);
+
+        var changedCatalog = new CompletableFuture<Catalog>();
+        var printStream = new PrintStream(OutputStream.nullOutputStream());
+        try (var menuWatcher = new MenuWatcher(path, changedCatalog::complete, printStream)) {
+            // An unchanged file keeps the current catalog and tells nobody
+            assertSame(previousCatalog, menuWatcher.reload());
+            menuWatcher.start();
+
+            var removed = records.getFirst();
+            MenuWatcherTest.replace(path, records.subList(1, records.size()));
+
+            var catalog = changedCatalog.get(30, TimeUnit.SECONDS);
+            assertEquals(previousCatalog.getVersion() + 1, catalog.getVersion());
+            assertEquals(records.size() - 1, catalog.size());
+            assertNull(catalog.findById(removed.id()));
+            assertSame(catalog, data.getCatalog());
+        }
+        finally {
+            data.publish(records);
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+}
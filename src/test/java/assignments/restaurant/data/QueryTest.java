@@ -8,7 +8,14 @@ package assignments.restaurant.data;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class QueryTest {
 
@@ -116,4 +123,263 @@ public class QueryTest {
         assertEquals(13, menuComponents.size());
     }
 
+    @Test
+    public void shouldFetchOnlyTheMenuComponentWithTheGivenId() {
+        var menuComponents = Query.fetchMenuComponentById("coxinha");
+        assertEquals(1, menuComponents.size());
+        assertEquals("coxinha", menuComponents.getFirst().id());
+    }
+
+    @Test
+    public void shouldFetchNothingForUnknownId() {
+        assertTrue(Query.fetchMenuComponentById("lasanha").isEmpty());
+        assertTrue(Query.fetchMenuComponentById(" ").isEmpty());
+    }
+
+    @Test
+    public void shouldFetchNothingFromEmptyBuckets() {
+        var catalog = new Catalog(1, List.of(
+                Query.fetchMenuComponentById("coxinha").getFirst(),
+                Query.fetchMenuComponentById("mucarela").getFirst()
+        ));
+
+        // Neither cuisine has desserts, and their empty buckets must not be taken for each other
+        assertEquals(0, catalog.fetch(RestrictByCuisine.Italian, null, null).count());
+        assertEquals(0, catalog.fetch(RestrictByCuisine.Brazilian, RestrictByCategory.Dessert, null).count());
+        assertEquals(1, catalog.fetch(null, RestrictByCategory.Appetizer, RestrictByDecorator.IsDecorator).count());
+        assertEquals(2, catalog.select(RestrictByCuisine.Brazilian, null, null).cardinality());
+    }
+
+    @Test
+    public void shouldApplyOnlyChangedRecords() {
+        var coxinha = Query.fetchMenuComponentById("coxinha").getFirst();
+        var mucarela = Query.fetchMenuComponentById("mucarela").getFirst();
+        var feijoada = Query.fetchMenuComponentById("feijoada").getFirst();
+        var farofa = Query.fetchMenuComponentById("farofa").getFirst();
+        var catalog = new Catalog(1, List.of(coxinha, mucarela, feijoada));
+        var cheaperCoxinha = new MenuComponentRecord(
+                coxinha.id(),
+                coxinha.category(),
+                coxinha.cuisine(),
+                coxinha.isDecorator(),
+                coxinha.name(),
+                coxinha.description(),
+                coxinha.cost() - 1
+        );
+
+        var updatedCatalog = catalog.apply(List.of(cheaperCoxinha, feijoada, farofa));
+
+        assertEquals(2, updatedCatalog.getVersion());
+        assertEquals(List.of(cheaperCoxinha, feijoada, farofa), updatedCatalog.getRecords());
+        assertEquals(3, updatedCatalog.size());
+        assertNull(updatedCatalog.findById(mucarela.id()));
+        assertEquals(1, updatedCatalog.fetch(null, RestrictByCategory.Appetizer, null).count());
+        assertEquals(
+                List.of(farofa),
+                updatedCatalog.fetch(null, null, RestrictByDecorator.IsDecorator).toList()
+                    );
+        // The previous snapshot is left as it was
+        assertEquals(List.of(coxinha, mucarela, feijoada), catalog.getRecords());
+        assertEquals(coxinha.cost(), catalog.findById(coxinha.id()).cost());
+        assertSame(updatedCatalog, updatedCatalog.apply(List.of(cheaperCoxinha, feijoada, farofa)));
+    }
+
+    @Test
+    public void shouldCompactCatalogWhenMostRecordsWereRemoved() {
+        var records = Data.getInstance().getCatalog().getRecords();
+        var catalog = new Catalog(1, records);
+
+        var updatedCatalog = catalog.apply(List.of(records.getLast()));
+
+        assertEquals(2, updatedCatalog.getVersion());
+        assertEquals(List.of(records.getLast()), updatedCatalog.getRecords());
+        assertEquals(1, updatedCatalog.select(null, null, null).length());
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> catalog.apply(List.of(records.getFirst(), records.getFirst()))
+                    );
+    }
+
+    @Test
+    public void shouldBuildRecordsFromColumns() {
+        var coxinha = Query.fetchMenuComponentById("coxinha").getFirst();
+        var fractionalCoxinha = new MenuComponentRecord(
+                new String(coxinha.id()),
+                coxinha.category(),
+                coxinha.cuisine(),
+                coxinha.isDecorator(),
+                coxinha.name(),
+                coxinha.description(),
+                coxinha.cost() + 0.001
+        );
+        var catalog = new Catalog(1, List.of(fractionalCoxinha));
+
+        // Costs are kept to the cent, and ids are interned
+        assertEquals(coxinha, catalog.findById(coxinha.id()));
+        assertSame(coxinha.id(), catalog.getRecords().getFirst().id());
+        assertSame(catalog, catalog.apply(List.of(fractionalCoxinha)));
+        assertThrows(UnsupportedOperationException.class, () -> catalog.getRecords().add(coxinha));
+    }
+
+    @Test
+    public void shouldRejectDuplicateIdsInCatalog() {
+        var menuComponentRecord = Query.fetchMenuComponentById("coxinha").getFirst();
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new Catalog(1, List.of(menuComponentRecord, menuComponentRecord))
+                    );
+    }
+
+    @Test
+    public void shouldSwapPublishedMenuWithoutChangingHeldSnapshots() {
+        var data = Data.getInstance();
+        var previousCatalog = data.getCatalog();
+        var coxinha = Query.fetchMenuComponentById("coxinha").getFirst();
+        var cheaperCoxinha = new MenuComponentRecord(
+                coxinha.id(),
+                coxinha.category(),
+                coxinha.cuisine(),
+                coxinha.isDecorator(),
+                coxinha.name(),
+                coxinha.description(),
+                coxinha.cost() - 1
+        );
+        var records = previousCatalog.getRecords()
+                                     .stream()
+                                     .map(record -> record.id().equals(coxinha.id()) ? cheaperCoxinha : record)
+                                     .toList();
+        try {
+            var publishedCatalog = data.publish(records);
+
+            assertEquals(previousCatalog.getVersion() + 1, publishedCatalog.getVersion());
+            assertSame(publishedCatalog, data.getCatalog());
+            assertEquals(coxinha.cost() - 1, Query.fetchMenuComponentById("coxinha").getFirst().cost());
+            assertEquals(coxinha.cost(), previousCatalog.findById("coxinha").cost());
+        }
+        finally {
+            data.publish(previousCatalog.getRecords());
+        }
+    }
+
+    @Test
+    public void shouldSearchIgnoringCaseAndAccents() {
+        assertEquals(
+                List.of(Query.fetchMenuComponentById("mucarela").getFirst()),
+                Query.searchMenuComponents("MUCARELA", 10)
+                    );
+        assertEquals(
+                List.of("caldo_de_feijao", "feijoada"),
+                Query.searchMenuComponents("feij", 10).stream().map(MenuComponentRecord::id).toList()
+                    );
+    }
+
+    @Test
+    public void shouldRankSearchResults() {
+        // Names rank above descriptions, and whole words above prefixes
+        assertEquals(
+                List.of("gelo", "caipirinha"),
+                Query.searchMenuComponents("gelo", 10).stream().map(MenuComponentRecord::id).toList()
+                    );
+        // Every word must match
+        assertEquals(
+                List.of("bruschetta", "focaccia"),
+                Query.searchMenuComponents("pão ital", 10).stream().map(MenuComponentRecord::id).toList()
+                    );
+        assertEquals(2, Query.searchMenuComponents("molho", 2).size());
+        assertTrue(Query.searchMenuComponents("  ", 10).isEmpty());
+        assertTrue(Query.searchMenuComponents("sushi", 10).isEmpty());
+    }
+
+    @Test
+    public void shouldShareResultsUntilMenuChanges() {
+        var catalog = new Catalog(1, Data.getInstance().getCatalog().getRecords());
+        var appetizers = catalog.fetchAll(RestrictByCuisine.Italian, RestrictByCategory.Appetizer, null);
+
+        assertSame(appetizers, catalog.fetchAll(RestrictByCuisine.Italian, RestrictByCategory.Appetizer, null));
+        assertNotSame(appetizers, catalog.fetchAll(RestrictByCuisine.Brazilian, RestrictByCategory.Appetizer, null));
+        assertEquals(
+                catalog.fetch(RestrictByCuisine.Italian, RestrictByCategory.Appetizer, null).toList(),
+                appetizers
+                    );
+
+        var updatedCatalog = catalog.apply(appetizers);
+        assertEquals(
+                appetizers,
+                updatedCatalog.fetchAll(RestrictByCuisine.Italian, RestrictByCategory.Appetizer, null)
+                    );
+        assertTrue(updatedCatalog.fetchAll(RestrictByCuisine.Brazilian, null, null).isEmpty());
+    }
+
+    @Test
+    public void shouldQueryByCostSortedAndPaged() {
+        var costs = Query.query()
+                         .restrictByCuisine(RestrictByCuisine.Brazilian)
+                         .restrictByCost(4, 10)
+                         .sortByCost()
+                         .stream()
+                         .map(MenuComponentRecord::cost)
+                         .toList();
+        assertEquals(List.of(4.0, 4.0, 5.0, 5.0, 5.0, 6.0, 10.0), costs);
+
+        var page = Query.query()
+                        .restrictByCuisine(RestrictByCuisine.Brazilian)
+                        .restrictByCost(4, 10)
+                        .sortByCost()
+                        .offset(2)
+                        .limit(3)
+                        .fetch();
+        assertEquals(List.of("coxinha", "brigadeiro", "farofa"), page.stream().map(MenuComponentRecord::id).toList());
+
+        var unsorted = Query.query().restrictByCost(50, 50).fetch();
+        assertEquals(List.of(Query.fetchMenuComponentById("vinho_chianti").getFirst()), unsorted);
+        assertThrows(IllegalArgumentException.class, () -> Query.query().restrictByCost(10, 4));
+        assertThrows(IllegalArgumentException.class, () -> Query.query().offset(-1));
+    }
+
+    @Test
+    public void shouldKeepRestrictionsOfStreamAlreadyBuilt() {
+        var sortedQuery = Query.query().restrictByCost(50, 50).sortByCost();
+        var sortedStream = sortedQuery.stream();
+        var unsortedQuery = Query.query().restrictByCost(50, 50);
+        var unsortedStream = unsortedQuery.stream();
+
+        sortedQuery.restrictByCost(0, 100);
+        unsortedQuery.restrictByCost(0, 100);
+
+        assertEquals(List.of("vinho_chianti"), sortedStream.map(MenuComponentRecord::id).toList());
+        assertEquals(List.of("vinho_chianti"), unsortedStream.map(MenuComponentRecord::id).toList());
+    }
+
+    @Test
+    public void shouldQueryByIdsAndName() {
+        assertEquals(
+                List.of("pao_de_alho", "molho_pesto"),
+                Query.query()
+                     .restrictByIds(List.of("molho_pesto", "pao_de_alho", "sushi"))
+                     .stream()
+                     .map(MenuComponentRecord::id)
+                     .toList()
+                    );
+        assertEquals(
+                List.of("molho_pesto", "molho_bolonhesa"),
+                Query.query().restrictByName("MOLHO").sortByCost().stream().map(MenuComponentRecord::id).toList()
+                    );
+        // Only names are matched, although "alho" is in the description of the pesto
+        assertEquals(
+                List.of("pao_de_alho"),
+                Query.query().restrictByName("alho").stream().map(MenuComponentRecord::id).toList()
+                    );
+        assertTrue(Query.query()
+                        .restrictByName("molho")
+                        .restrictByCategory(RestrictByCategory.Dessert)
+                        .fetch()
+                        .isEmpty());
+    }
+
+    @Test
+    public void shouldReturnUnmodifiableResults() {
+        var menuComponents = Query.fetchAllMenuComponents(null, null, null);
+        assertThrows(UnsupportedOperationException.class, () -> menuComponents.add(menuComponents.getFirst()));
+    }
+
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2025 Gabriel Malosto.
+ *
+ * Licensed under the GNU Affero General Public License, Version 3.0 (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at <https://www.gnu.org/licenses/agpl-3.0.txt>.
+ */
+
+package assignments.restaurant.order.state;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderStateContextTest {
+
+    @Test
+    public void shouldAdvanceThroughEveryState() {
+        var orderStateContext = new OrderStateContext();
+        assertEquals(StateType.New, orderStateContext.getStateType());
+        orderStateContext.advance();
+        assertEquals(StateType.Preparing, orderStateContext.getStateType());
+        orderStateContext.advanceTo(StateType.Finished);
+        assertEquals(StateType.Finished, orderStateContext.getStateType());
+        orderStateContext.advanceTo(StateType.Delivering);
+        assertEquals(StateType.Finished, orderStateContext.getStateType());
+        assertThrows(IllegalStateException.class, orderStateContext::advance);
+    }
+
+    @Test
+    public void shouldNotLoseConcurrentAdvances()
+            throws Exception {
+        int numberOfContexts = 10_000;
+        List<OrderStateContext> orderStateContexts = new ArrayList<>(numberOfContexts);
+        for (
+                int i = 0;
+                i < numberOfContexts;
+                i++
+        ) {
+            orderStateContexts.add(new OrderStateContext());
+        }
+
+        // Three employees advance every order at the same time, which takes each order from new to finished
+        int numberOfThreads = 3;
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newFixedThreadPool(numberOfThreads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (
+                    int i = 0;
+                    i < numberOfThreads;
+                    i++
+            ) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    orderStateContexts.forEach(OrderStateContext::advance);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var future : futures) {
+                future.get();
+            }
+        }
+
+        for (var orderStateContext : orderStateContexts) {
+            assertEquals(StateType.Finished, orderStateContext.getStateType());
+        }
+    }
+
+    @Test
+    public void shouldKeepStatesSingletonWhenDeserialized()
+            throws IOException, ClassNotFoundException {
+        var orderStateContext = new OrderStateContext();
+        orderStateContext.advance();
+
+        var byteArrayOutputStream = new ByteArrayOutputStream();
+        try (var objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(orderStateContext);
+            objectOutputStream.writeObject(Preparing.getInstance());
+        }
+        var byteArrayInputStream = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+        try (var objectInputStream = new ObjectInputStream(byteArrayInputStream)) {
+            var deserialized = (OrderStateContext) objectInputStream.readObject();
+            assertEquals(StateType.Preparing, deserialized.getStateType());
+            deserialized.advance();
+            assertEquals(StateType.Delivering, deserialized.getStateType());
+            assertSame(Preparing.getInstance(), objectInputStream.readObject());
+        }
+    }
+
+}